@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class CopyStoreBenchmark
+{
+	public enum Direction
+	{
+		PACK(Fixture.Format.JAGEX, Fixture.Format.FLAT),
+		UNPACK(Fixture.Format.FLAT, Fixture.Format.JAGEX);
+
+		private final Fixture.Format from;
+		private final Fixture.Format to;
+
+		Direction(Fixture.Format from, Fixture.Format to)
+		{
+			this.from = from;
+			this.to = to;
+		}
+	}
+
+	@Param
+	public Direction direction;
+
+	private Fixture fixture;
+	private Store src;
+	private File dst;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException
+	{
+		fixture = Fixture.create();
+		src = FlatCache.loadStore(fixture.get(direction.from));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException
+	{
+		src.close();
+		fixture.delete();
+	}
+
+	@Setup(Level.Invocation)
+	public void createOutput() throws IOException
+	{
+		dst = fixture.createEmpty(direction.to);
+	}
+
+	@TearDown(Level.Invocation)
+	public void deleteOutput() throws IOException
+	{
+		Fixture.delete(dst);
+	}
+
+	@Benchmark
+	public void copyStore(ArchiveCounters counters) throws IOException
+	{
+		try (Store dstStore = new Store(fixture.createStorage(direction.to, dst)))
+		{
+			FlatCache.copyStore(dstStore, src);
+		}
+
+		for (Index idx : src.getIndexes())
+		{
+			counters.archives += idx.getArchives().size();
+		}
+	}
+}
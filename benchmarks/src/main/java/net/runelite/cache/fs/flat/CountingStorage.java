@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.Store;
+
+/**
+ * A read only view of a loaded store that counts every archive loaded through it, including the
+ * ones that bypass the {@link ArchiveCache}. The source store stays owned by the caller
+ */
+class CountingStorage implements Storage
+{
+	private final Store source;
+	private final LongAdder loads = new LongAdder();
+
+	CountingStorage(Store source)
+	{
+		this.source = source;
+	}
+
+	long getLoads()
+	{
+		return loads.sum();
+	}
+
+	@Override
+	public void init(Store store)
+	{
+	}
+
+	@Override
+	public void close()
+	{
+	}
+
+	@Override
+	public void load(Store store)
+	{
+		for (Index si : source.getIndexes())
+		{
+			Index idx = store.addIndex(si.getId());
+			idx.setProtocol(si.getProtocol());
+			idx.setRevision(si.getRevision());
+			idx.setCompression(si.getCompression());
+			idx.setCrc(si.getCrc());
+			idx.setNamed(si.isNamed());
+
+			for (Archive sa : si.getArchives())
+			{
+				Archive a = idx.addArchive(sa.getArchiveId());
+				a.setNameHash(sa.getNameHash());
+				a.setRevision(sa.getRevision());
+				a.setCrc(sa.getCrc());
+				a.setCompression(sa.getCompression());
+				a.setFileData(sa.getFileData());
+			}
+		}
+	}
+
+	@Override
+	public void save(Store store)
+	{
+		throw new UnsupportedOperationException("CountingStorage is read only");
+	}
+
+	@Override
+	public byte[] loadArchive(Archive archive) throws IOException
+	{
+		loads.increment();
+		// storages look archives up by index and archive id, so this store's archives work as keys
+		return source.getStorage().loadArchive(archive);
+	}
+
+	@Override
+	public void saveArchive(Archive archive, byte[] data)
+	{
+		throw new UnsupportedOperationException("CountingStorage is read only");
+	}
+}
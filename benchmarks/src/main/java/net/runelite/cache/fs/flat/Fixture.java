@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import com.google.common.base.Strings;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.DiskStorage;
+
+/**
+ * The cache benchmarks run against, set with {@code -Pcache=} when running {@code :benchmarks:jmh}
+ */
+final class Fixture
+{
+	private static final String PROPERTY = "flatcache.bench.cache";
+
+	enum Format
+	{
+		JAGEX,
+		FLAT,
+		BINARY,
+	}
+
+	private final File directory;
+
+	private Fixture(File directory)
+	{
+		this.directory = directory;
+	}
+
+	static File source()
+	{
+		String path = System.getProperty(PROPERTY);
+		if (Strings.isNullOrEmpty(path))
+		{
+			throw new IllegalStateException("no fixture cache, pass -Pcache=<jagex or flat cache directory>");
+		}
+		return new File(path);
+	}
+
+	/**
+	 * Copies the fixture into every storage format in a new temporary directory
+	 */
+	static Fixture create() throws IOException
+	{
+		Fixture f = new Fixture(Files.createTempDirectory("flatcache-bench").toFile());
+		try (Store src = FlatCache.loadStore(source()))
+		{
+			for (Format format : Format.values())
+			{
+				try (Store dst = new Store(f.createStorage(format, f.get(format))))
+				{
+					FlatCache.copyStore(dst, src);
+				}
+			}
+		}
+		return f;
+	}
+
+	File get(Format format)
+	{
+		return new File(directory, format.name().toLowerCase());
+	}
+
+	File createEmpty(Format format) throws IOException
+	{
+		return Files.createTempDirectory(directory.toPath(), format.name().toLowerCase()).toFile();
+	}
+
+	Storage createStorage(Format format, File dir) throws IOException
+	{
+		dir.mkdirs();
+		switch (format)
+		{
+			case JAGEX:
+				return new DiskStorage(dir);
+			case FLAT:
+				return new FlatStorage(dir);
+			case BINARY:
+				return new BinaryFlatStorage(dir);
+		}
+		throw new IllegalArgumentException(format.name());
+	}
+
+	static void delete(File dir) throws IOException
+	{
+		MoreFiles.deleteRecursively(dir.toPath(), RecursiveDeleteOption.ALLOW_INSECURE);
+	}
+
+	void delete() throws IOException
+	{
+		delete(directory);
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class LoadStoreBenchmark
+{
+	public enum Storage
+	{
+		JAGEX(Fixture.Format.JAGEX),
+		JAGEX_MMAP(Fixture.Format.JAGEX, FlatCache.LoadOption.MMAP),
+		FLAT(Fixture.Format.FLAT),
+		FLAT_LAZY(Fixture.Format.FLAT, FlatCache.LoadOption.LAZY),
+		BINARY(Fixture.Format.BINARY);
+
+		private final Fixture.Format format;
+		private final FlatCache.LoadOption[] options;
+
+		Storage(Fixture.Format format, FlatCache.LoadOption... options)
+		{
+			this.format = format;
+			this.options = options;
+		}
+	}
+
+	@Param
+	public Storage storage;
+
+	private Fixture fixture;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException
+	{
+		fixture = Fixture.create();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException
+	{
+		fixture.delete();
+	}
+
+	private Store open() throws IOException
+	{
+		return FlatCache.loadStore(fixture.get(storage.format), storage.options);
+	}
+
+	@Benchmark
+	public int load() throws IOException
+	{
+		try (Store store = open())
+		{
+			return store.getIndexes().size();
+		}
+	}
+
+	@Benchmark
+	public void loadAll(ArchiveCounters counters, Blackhole bh) throws IOException
+	{
+		try (Store store = open())
+		{
+			for (Index idx : store.getIndexes())
+			{
+				for (Archive a : idx.getArchives())
+				{
+					bh.consume(store.getStorage().loadArchive(a));
+					counters.archives++;
+				}
+			}
+		}
+	}
+}
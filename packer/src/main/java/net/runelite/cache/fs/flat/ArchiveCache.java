@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.ArchiveFiles;
+import net.runelite.cache.fs.FSFile;
+import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.Store;
+
+/**
+ * A size bounded cache of decompressed archives shared by everything that decodes a {@link Store},
+ * so an archive read by several dumpers is only loaded and decompressed once. Entries are keyed by
+ * storage, index, archive, revision and crc, so a changed archive is never served stale.
+ * <p>
+ * Cached archives must not be modified
+ */
+public class ArchiveCache
+{
+	private static final Cache<Key, Object> CACHE = CacheBuilder.newBuilder()
+		.maximumWeight(Runtime.getRuntime().maxMemory() / 8)
+		.weigher(ArchiveCache::weigh)
+		.recordStats()
+		.build();
+
+	private ArchiveCache()
+	{
+	}
+
+	private static final class Key
+	{
+		private final Storage storage;
+		private final int index;
+		private final int archive;
+		private final int revision;
+		private final int crc;
+		private final boolean files;
+
+		private Key(Store store, Archive archive, boolean files)
+		{
+			this.storage = store.getStorage();
+			this.index = archive.getIndex().getId();
+			this.archive = archive.getArchiveId();
+			this.revision = archive.getRevision();
+			this.crc = archive.getCrc();
+			this.files = files;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Key))
+			{
+				return false;
+			}
+
+			Key k = (Key) o;
+			return storage == k.storage && index == k.index && archive == k.archive
+				&& revision == k.revision && crc == k.crc && files == k.files;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(System.identityHashCode(storage), index, archive, revision, crc, files);
+		}
+	}
+
+	private static int weigh(Key key, Object value)
+	{
+		long size = 0;
+		if (value instanceof byte[])
+		{
+			size = ((byte[]) value).length;
+		}
+		else
+		{
+			for (FSFile f : ((ArchiveFiles) value).getFiles())
+			{
+				size += f.getContents().length;
+			}
+		}
+		return (int) Math.min(size, Integer.MAX_VALUE);
+	}
+
+	private static Object get(Key key, Callable<Object> loader) throws IOException
+	{
+		try
+		{
+			return CACHE.get(key, loader);
+		}
+		catch (ExecutionException | UncheckedExecutionException e)
+		{
+			Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+			Throwables.throwIfUnchecked(e.getCause());
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * Loads and decompresses an archive
+	 */
+	public static byte[] decompress(Store store, Archive archive) throws IOException
+	{
+		return (byte[]) get(new Key(store, archive, false), () ->
+		{
+			byte[] data = archive.decompress(store.getStorage().loadArchive(archive));
+			Metrics.archiveRead(data == null ? 0 : data.length);
+			return data;
+		});
+	}
+
+	/**
+	 * Loads and decompresses an archive without caching it, for large archives that are only
+	 * read once and would otherwise evict ones other dumpers still need
+	 */
+	public static byte[] decompressUncached(Store store, Archive archive) throws IOException
+	{
+		Object cached = CACHE.getIfPresent(new Key(store, archive, false));
+		if (cached != null)
+		{
+			return (byte[]) cached;
+		}
+
+		byte[] data = archive.decompress(store.getStorage().loadArchive(archive));
+		Metrics.archiveRead(data == null ? 0 : data.length);
+		return data;
+	}
+
+	/**
+	 * Loads an archive and splits it into its files
+	 */
+	public static ArchiveFiles getFiles(Store store, Archive archive) throws IOException
+	{
+		return (ArchiveFiles) get(new Key(store, archive, true), () ->
+		{
+			ArchiveFiles files = archive.getFiles(store.getStorage().loadArchive(archive));
+			Metrics.archiveRead(weigh(null, files));
+			return files;
+		});
+	}
+
+	/**
+	 * Drops the cached archives of an index of {@code store}, or just one of them if
+	 * {@code archive} isn't -1
+	 */
+	public static void invalidate(Store store, int index, int archive)
+	{
+		Storage storage = store.getStorage();
+		CACHE.asMap().keySet().removeIf(k -> k.storage == storage && k.index == index && (archive == -1 || k.archive == archive));
+	}
+
+	public static void invalidateAll()
+	{
+		CACHE.invalidateAll();
+	}
+
+	public static CacheStats stats()
+	{
+		return CACHE.stats();
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A sink that writes every entry into a single archive file. Entries are handed to a
+ * single writer thread through a queue bounded both in entries and in bytes, so decoders
+ * only block when the archive falls behind
+ */
+public abstract class ArchiveSink implements DumpSink
+{
+	private static final int QUEUE_SIZE = 1024;
+	private static final int QUEUE_BYTES = 64 << 20;
+
+	private static class Entry
+	{
+		final String path;
+		final byte[] data;
+
+		Entry(String path, byte[] data)
+		{
+			this.path = path;
+			this.data = data;
+		}
+	}
+
+	private static final Entry END = new Entry(null, null);
+
+	private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+	private final Semaphore queuedBytes = new Semaphore(QUEUE_BYTES);
+	private final Thread writer;
+	private volatile IOException failure;
+
+	protected ArchiveSink()
+	{
+		writer = new Thread(this::run, "ArchiveSink writer");
+		writer.setDaemon(true);
+	}
+
+	/**
+	 * Opens a sink for {@code file} if its extension is a supported archive format, otherwise null
+	 */
+	public static ArchiveSink open(File file) throws IOException
+	{
+		String name = file.getName().toLowerCase();
+		ArchiveSink sink;
+		if (name.endsWith(".zip"))
+		{
+			sink = new ZipSink(file);
+		}
+		else if (name.endsWith(".tar.gz") || name.endsWith(".tgz"))
+		{
+			sink = new TarSink(file);
+		}
+		else
+		{
+			return null;
+		}
+
+		sink.writer.start();
+		return sink;
+	}
+
+	protected abstract void writeEntry(String path, byte[] data) throws IOException;
+
+	protected abstract void finish() throws IOException;
+
+	private void run()
+	{
+		try
+		{
+			for (Entry e; (e = queue.take()) != END; )
+			{
+				// after a failure keep draining, so producers don't block forever
+				if (failure == null)
+				{
+					try
+					{
+						writeEntry(e.path, e.data);
+					}
+					catch (IOException ex)
+					{
+						failure = ex;
+					}
+				}
+				queuedBytes.release(weigh(e.data));
+			}
+		}
+		catch (InterruptedException e)
+		{
+			failure = new InterruptedIOException();
+		}
+	}
+
+	@Override
+	public void write(String path, byte[] data) throws IOException
+	{
+		checkFailure();
+		try
+		{
+			queuedBytes.acquire(weigh(data));
+			queue.put(new Entry(path, data));
+		}
+		catch (InterruptedException e)
+		{
+			throw new InterruptedIOException();
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			queue.put(END);
+			writer.join();
+		}
+		catch (InterruptedException e)
+		{
+			throw new InterruptedIOException();
+		}
+
+		try
+		{
+			checkFailure();
+		}
+		finally
+		{
+			finish();
+		}
+	}
+
+	// an entry larger than the whole budget waits for the queue to drain instead of forever
+	private static int weigh(byte[] data)
+	{
+		return Math.min(data.length, QUEUE_BYTES);
+	}
+
+	private void checkFailure() throws IOException
+	{
+		IOException e = failure;
+		if (e != null)
+		{
+			throw new IOException("error writing archive", e);
+		}
+	}
+}
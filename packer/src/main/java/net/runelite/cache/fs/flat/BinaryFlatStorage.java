@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.index.FileData;
+
+/**
+ * A binary sibling of the {@code .flatcache} format, for tools that only read the cache and don't
+ * want to pay for base64 decoding and line parsing. The whole store is kept in one file:
+ * <pre>
+ * header:   int magic, int version, long table offset
+ * payloads: the raw (compressed) archive contents, back to back
+ * table:    int index count, then for each index
+ *             int id, int protocol, int revision, int compression, int crc, byte named, int archive count
+ *             and for each archive
+ *               int id, int name hash, int revision, int crc, int compression,
+ *               long offset, int length (offset -1 if the archive has no contents),
+ *               int file count (-1 if unset), then int id, int name hash for each file
+ * </pre>
+ * All values are big endian
+ */
+public class BinaryFlatStorage implements Storage
+{
+	public static final String FILE_NAME = "flatcache.bin";
+
+	private static final int MAGIC = 0x464C4342; // FLCB
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 16;
+
+	private final File file;
+	private final Map<Long, long[]> offsets = new HashMap<>();
+	private FileChannel channel;
+	private boolean writing;
+
+	public BinaryFlatStorage(File directory)
+	{
+		this.file = new File(directory, FILE_NAME);
+	}
+
+	private static long key(Archive archive)
+	{
+		return (long) archive.getIndex().getId() << 32 | archive.getArchiveId();
+	}
+
+	@Override
+	public void init(Store store)
+	{
+	}
+
+	@Override
+	public synchronized void close() throws IOException
+	{
+		if (channel != null)
+		{
+			channel.close();
+			channel = null;
+		}
+	}
+
+	@Override
+	public synchronized void load(Store store) throws IOException
+	{
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+		ByteBuffer header = read(0, HEADER_SIZE);
+		if (header.getInt() != MAGIC || header.getInt() != VERSION)
+		{
+			throw new IOException("\"" + file + "\" isn't a binary flat cache");
+		}
+		long tableOffset = header.getLong();
+
+		ByteBuffer table = read(tableOffset, (int) (channel.size() - tableOffset));
+		for (int indexCount = table.getInt(); indexCount > 0; indexCount--)
+		{
+			Index idx = store.addIndex(table.getInt());
+			idx.setProtocol(table.getInt());
+			idx.setRevision(table.getInt());
+			idx.setCompression(table.getInt());
+			idx.setCrc(table.getInt());
+			idx.setNamed(table.get() != 0);
+
+			for (int archiveCount = table.getInt(); archiveCount > 0; archiveCount--)
+			{
+				Archive archive = idx.addArchive(table.getInt());
+				archive.setNameHash(table.getInt());
+				archive.setRevision(table.getInt());
+				archive.setCrc(table.getInt());
+				archive.setCompression(table.getInt());
+
+				long offset = table.getLong();
+				int length = table.getInt();
+				if (offset != -1)
+				{
+					offsets.put(key(archive), new long[]{offset, length});
+				}
+
+				int fileCount = table.getInt();
+				if (fileCount != -1)
+				{
+					FileData[] fileData = new FileData[fileCount];
+					for (int i = 0; i < fileCount; i++)
+					{
+						FileData fd = new FileData();
+						fd.setId(table.getInt());
+						fd.setNameHash(table.getInt());
+						fileData[i] = fd;
+					}
+					archive.setFileData(fileData);
+				}
+			}
+		}
+	}
+
+	private ByteBuffer read(long position, int length) throws IOException
+	{
+		ByteBuffer buf = ByteBuffer.allocate(length);
+		while (buf.hasRemaining())
+		{
+			if (channel.read(buf, position + buf.position()) < 0)
+			{
+				throw new EOFException("\"" + file + "\" is truncated");
+			}
+		}
+		buf.flip();
+		return buf;
+	}
+
+	@Override
+	public byte[] loadArchive(Archive archive) throws IOException
+	{
+		long[] entry;
+		FileChannel channel;
+		synchronized (this)
+		{
+			entry = offsets.get(key(archive));
+			channel = this.channel;
+		}
+
+		if (entry == null)
+		{
+			return null;
+		}
+
+		// positional reads don't move the channel, so these can run concurrently
+		byte[] data = new byte[(int) entry[1]];
+		ByteBuffer buf = ByteBuffer.wrap(data);
+		while (buf.hasRemaining())
+		{
+			if (channel.read(buf, entry[0] + buf.position()) < 0)
+			{
+				throw new EOFException("\"" + file + "\" is truncated");
+			}
+		}
+		return data;
+	}
+
+	private void openForWriting() throws IOException
+	{
+		if (writing)
+		{
+			return;
+		}
+
+		close();
+		offsets.clear();
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+			StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING);
+		channel.position(HEADER_SIZE);
+		writing = true;
+	}
+
+	private void write(ByteBuffer buf) throws IOException
+	{
+		while (buf.hasRemaining())
+		{
+			channel.write(buf);
+		}
+	}
+
+	@Override
+	public synchronized void saveArchive(Archive archive, byte[] data) throws IOException
+	{
+		openForWriting();
+		offsets.put(key(archive), new long[]{channel.position(), data.length});
+		write(ByteBuffer.wrap(data));
+	}
+
+	@Override
+	public synchronized void save(Store store) throws IOException
+	{
+		openForWriting();
+		long tableOffset = channel.position();
+
+		int size = 4;
+		for (Index idx : store.getIndexes())
+		{
+			size += 25;
+			for (Archive archive : idx.getArchives())
+			{
+				FileData[] fileData = archive.getFileData();
+				size += 36 + (fileData == null ? 0 : fileData.length * 8);
+			}
+		}
+
+		ByteBuffer table = ByteBuffer.allocate(size);
+		table.putInt(store.getIndexes().size());
+		for (Index idx : store.getIndexes())
+		{
+			table.putInt(idx.getId());
+			table.putInt(idx.getProtocol());
+			table.putInt(idx.getRevision());
+			table.putInt(idx.getCompression());
+			table.putInt(idx.getCrc());
+			table.put((byte) (idx.isNamed() ? 1 : 0));
+			table.putInt(idx.getArchives().size());
+
+			for (Archive archive : idx.getArchives())
+			{
+				table.putInt(archive.getArchiveId());
+				table.putInt(archive.getNameHash());
+				table.putInt(archive.getRevision());
+				table.putInt(archive.getCrc());
+				table.putInt(archive.getCompression());
+
+				long[] entry = offsets.get(key(archive));
+				table.putLong(entry == null ? -1 : entry[0]);
+				table.putInt(entry == null ? 0 : (int) entry[1]);
+
+				FileData[] fileData = archive.getFileData();
+				if (fileData == null)
+				{
+					table.putInt(-1);
+				}
+				else
+				{
+					table.putInt(fileData.length);
+					for (FileData fd : fileData)
+					{
+						table.putInt(fd.getId());
+						table.putInt(fd.getNameHash());
+					}
+				}
+			}
+		}
+		table.flip();
+		write(table);
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putLong(tableOffset);
+		header.flip();
+		channel.write(header, 0);
+		channel.force(false);
+	}
+}
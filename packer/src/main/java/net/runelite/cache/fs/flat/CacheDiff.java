@@ -0,0 +1,473 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.FSFile;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+
+/**
+ * Finds what changed between two caches. Indexes and archives are compared by their crc and
+ * revision, and changed archives whose files are entries, such as config archives, file by file.
+ * Only the changed entries are then decoded, by running each {@link Dumper} with a manifest
+ * selecting them. Every entry of an added or removed index is decoded
+ */
+public class CacheDiff
+{
+	private static final Gson GSON = new Gson();
+
+	static class IndexChange
+	{
+		int index;
+		String status;
+		Integer oldRevision;
+		Integer newRevision;
+		Integer oldCrc;
+		Integer newCrc;
+		List<ArchiveChange> archives;
+	}
+
+	static class ArchiveChange
+	{
+		int archive;
+		String status;
+		Integer oldRevision;
+		Integer newRevision;
+		Integer oldCrc;
+		Integer newCrc;
+		List<Integer> filesAdded;
+		List<Integer> filesRemoved;
+		List<Integer> filesChanged;
+	}
+
+	static class Changes
+	{
+		final Map<String, JsonElement> added = new TreeMap<>();
+		final Map<String, JsonElement> removed = new TreeMap<>();
+		final Map<String, JsonObject> changed = new TreeMap<>();
+	}
+
+	/**
+	 * The entries a dumper has to decode from each cache, where null means all of them
+	 */
+	private static class Selection
+	{
+		Set<Integer> before = new HashSet<>();
+		Set<Integer> after = new HashSet<>();
+	}
+
+	private final Store a;
+	private final Store b;
+	private final List<IndexChange> indexes = new ArrayList<>();
+	private final Map<String, Changes> definitions = new TreeMap<>();
+	// indexes whose changed archives are compared file by file
+	private final Set<Integer> fileIndexes = new HashSet<>();
+
+	private CacheDiff(Store a, Store b)
+	{
+		this.a = a;
+		this.b = b;
+		fileIndexes.add(IndexType.CONFIGS.getNumber());
+		for (Dumper d : Dumper.values())
+		{
+			if (FlatCache.isAnnotated(d, FileEntries.class))
+			{
+				fileIndexes.add(d.getIndex());
+			}
+		}
+	}
+
+	/**
+	 * Compares {@code a}, the old cache, to {@code b}. If {@code decode} is set the changed
+	 * entries are decoded with the {@link Dumper} that reads them, otherwise only ids are reported
+	 */
+	public static JsonObject diff(Store a, Store b, boolean decode) throws Exception
+	{
+		CacheDiff diff = new CacheDiff(a, b);
+		diff.compareIndexes();
+		if (decode)
+		{
+			diff.decode();
+		}
+
+		JsonObject out = new JsonObject();
+		out.add("indexes", GSON.toJsonTree(diff.indexes));
+		if (decode)
+		{
+			out.add("definitions", GSON.toJsonTree(diff.definitions));
+		}
+		return out;
+	}
+
+	private void compareIndexes() throws IOException
+	{
+		Set<Integer> ids = new TreeSet<>();
+		a.getIndexes().forEach(i -> ids.add(i.getId()));
+		b.getIndexes().forEach(i -> ids.add(i.getId()));
+
+		for (int id : ids)
+		{
+			Index ia = a.findIndex(id);
+			Index ib = b.findIndex(id);
+
+			IndexChange ic = new IndexChange();
+			ic.index = id;
+			if (ia != null)
+			{
+				ic.oldRevision = ia.getRevision();
+				ic.oldCrc = ia.getCrc();
+			}
+			if (ib != null)
+			{
+				ic.newRevision = ib.getRevision();
+				ic.newCrc = ib.getCrc();
+			}
+
+			if (ia == null || ib == null)
+			{
+				ic.status = ia == null ? "added" : "removed";
+				indexes.add(ic);
+				continue;
+			}
+
+			ic.archives = compareArchives(ia, ib);
+			if (!ic.archives.isEmpty() || ia.getRevision() != ib.getRevision() || ia.getCrc() != ib.getCrc())
+			{
+				ic.status = "changed";
+				indexes.add(ic);
+			}
+		}
+	}
+
+	private List<ArchiveChange> compareArchives(Index ia, Index ib) throws IOException
+	{
+		Map<Integer, Archive> old = new HashMap<>();
+		ia.getArchives().forEach(ar -> old.put(ar.getArchiveId(), ar));
+		Map<Integer, Archive> cur = new HashMap<>();
+		ib.getArchives().forEach(ar -> cur.put(ar.getArchiveId(), ar));
+
+		Set<Integer> ids = new TreeSet<>(old.keySet());
+		ids.addAll(cur.keySet());
+
+		List<ArchiveChange> changes = new ArrayList<>();
+		for (int id : ids)
+		{
+			Archive aa = old.get(id);
+			Archive ab = cur.get(id);
+			if (aa != null && ab != null && aa.getCrc() == ab.getCrc() && aa.getRevision() == ab.getRevision())
+			{
+				continue;
+			}
+
+			ArchiveChange ac = new ArchiveChange();
+			ac.archive = id;
+			if (aa != null)
+			{
+				ac.oldRevision = aa.getRevision();
+				ac.oldCrc = aa.getCrc();
+			}
+			if (ab != null)
+			{
+				ac.newRevision = ab.getRevision();
+				ac.newCrc = ab.getCrc();
+			}
+
+			if (aa == null || ab == null)
+			{
+				ac.status = aa == null ? "added" : "removed";
+			}
+			else
+			{
+				ac.status = "changed";
+				if (fileIndexes.contains(ia.getId()))
+				{
+					compareFiles(ac, aa, ab);
+				}
+			}
+			changes.add(ac);
+		}
+		return changes;
+	}
+
+	private void compareFiles(ArchiveChange ac, Archive aa, Archive ab) throws IOException
+	{
+		Map<Integer, byte[]> old = new HashMap<>();
+		for (FSFile f : ArchiveCache.getFiles(a, aa).getFiles())
+		{
+			old.put(f.getFileId(), f.getContents());
+		}
+
+		ac.filesAdded = new ArrayList<>();
+		ac.filesRemoved = new ArrayList<>();
+		ac.filesChanged = new ArrayList<>();
+		Set<Integer> seen = new HashSet<>();
+		for (FSFile f : ArchiveCache.getFiles(b, ab).getFiles())
+		{
+			seen.add(f.getFileId());
+			byte[] o = old.get(f.getFileId());
+			if (o == null)
+			{
+				ac.filesAdded.add(f.getFileId());
+			}
+			else if (!Arrays.equals(o, f.getContents()))
+			{
+				ac.filesChanged.add(f.getFileId());
+			}
+		}
+		for (int id : old.keySet())
+		{
+			if (!seen.contains(id))
+			{
+				ac.filesRemoved.add(id);
+			}
+		}
+
+		ac.filesAdded.sort(null);
+		ac.filesRemoved.sort(null);
+		ac.filesChanged.sort(null);
+	}
+
+	private void decode() throws Exception
+	{
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		try
+		{
+			List<ForkJoinTask<Void>> tasks = new ArrayList<>();
+			for (Dumper d : Dumper.values())
+			{
+				if (FlatCache.isAnnotated(d, NotAll.class))
+				{
+					continue;
+				}
+
+				Selection s = select(d);
+				if (s == null)
+				{
+					continue;
+				}
+
+				tasks.add(pool.submit(() ->
+				{
+					MemorySink old = new MemorySink();
+					MemorySink cur = new MemorySink();
+					dump(d, a, old, s.before);
+					dump(d, b, cur, s.after);
+
+					Changes c = compareOutput(old.getFiles(), s.before, cur.getFiles(), s.after);
+					if (!c.added.isEmpty() || !c.removed.isEmpty() || !c.changed.isEmpty())
+					{
+						synchronized (definitions)
+						{
+							definitions.put(d.name().toLowerCase(), c);
+						}
+					}
+					return (Void) null;
+				}));
+			}
+
+			for (ForkJoinTask<Void> t : tasks)
+			{
+				t.get();
+			}
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	private static void dump(Dumper dumper, Store store, MemorySink out, Set<Integer> selected) throws Exception
+	{
+		if (selected == null)
+		{
+			dumper.dump(store, out, DumpManifest.none());
+		}
+		else if (!selected.isEmpty())
+		{
+			dumper.dump(store, out, DumpManifest.only(selected));
+		}
+	}
+
+	/**
+	 * Collects the entry ids {@code dumper} has to decode from the old and the new cache, or
+	 * returns null if there are none
+	 */
+	private Selection select(Dumper dumper) throws IOException
+	{
+		boolean files = dumper.getConfigType() != null || FlatCache.isAnnotated(dumper, FileEntries.class);
+		Selection s = new Selection();
+		for (IndexChange ic : indexes)
+		{
+			if (ic.index != dumper.getIndex())
+			{
+				continue;
+			}
+
+			if (ic.archives == null)
+			{
+				// the index was added or removed, so is every entry in it
+				if ("added".equals(ic.status))
+				{
+					s.after = null;
+				}
+				else
+				{
+					s.before = null;
+				}
+				continue;
+			}
+
+			for (ArchiveChange ac : ic.archives)
+			{
+				if (dumper.getConfigType() != null && ac.archive != dumper.getConfigType().getId())
+				{
+					continue;
+				}
+
+				if (!files)
+				{
+					add(s.before, !"added".equals(ac.status), ac.archive);
+					add(s.after, !"removed".equals(ac.status), ac.archive);
+				}
+				else if (ac.filesChanged != null)
+				{
+					addAll(s.before, ac.filesChanged, ac.filesRemoved);
+					addAll(s.after, ac.filesChanged, ac.filesAdded);
+				}
+				else
+				{
+					// a whole archive of files was added or removed
+					addAll(s.before, "added".equals(ac.status) ? Collections.emptyList() : files(a, ac.archive, dumper));
+					addAll(s.after, "removed".equals(ac.status) ? Collections.emptyList() : files(b, ac.archive, dumper));
+				}
+			}
+		}
+
+		boolean none = s.before != null && s.before.isEmpty() && s.after != null && s.after.isEmpty();
+		return none ? null : s;
+	}
+
+	private static List<Integer> files(Store store, int archive, Dumper dumper) throws IOException
+	{
+		Archive ar = store.findIndex(dumper.getIndex()).getArchive(archive);
+		List<Integer> ids = new ArrayList<>();
+		for (FSFile f : ArchiveCache.getFiles(store, ar).getFiles())
+		{
+			ids.add(f.getFileId());
+		}
+		return ids;
+	}
+
+	private static void add(Set<Integer> ids, boolean add, int id)
+	{
+		if (ids != null && add)
+		{
+			ids.add(id);
+		}
+	}
+
+	@SafeVarargs
+	private static void addAll(Set<Integer> ids, List<Integer>... lists)
+	{
+		if (ids != null)
+		{
+			for (List<Integer> l : lists)
+			{
+				ids.addAll(l);
+			}
+		}
+	}
+
+	private static Changes compareOutput(Map<String, byte[]> old, Set<Integer> before, Map<String, byte[]> cur, Set<Integer> after)
+	{
+		// dumpers that don't consult the manifest write every entry, so keep only the selected ones
+		Changes c = new Changes();
+		for (Map.Entry<String, byte[]> e : old.entrySet())
+		{
+			if (before != null && !before.contains(DumpManifest.entryId(e.getKey())))
+			{
+				continue;
+			}
+
+			byte[] n = cur.get(e.getKey());
+			if (n == null)
+			{
+				c.removed.put(e.getKey(), toJson(e.getKey(), e.getValue()));
+			}
+			else if (!Arrays.equals(n, e.getValue()))
+			{
+				JsonObject change = new JsonObject();
+				change.add("old", toJson(e.getKey(), e.getValue()));
+				change.add("new", toJson(e.getKey(), n));
+				c.changed.put(e.getKey(), change);
+			}
+		}
+		for (Map.Entry<String, byte[]> e : cur.entrySet())
+		{
+			if ((after == null || after.contains(DumpManifest.entryId(e.getKey()))) && !old.containsKey(e.getKey()))
+			{
+				c.added.put(e.getKey(), toJson(e.getKey(), e.getValue()));
+			}
+		}
+		return c;
+	}
+
+	private static JsonElement toJson(String path, byte[] data)
+	{
+		if (path.endsWith(".json"))
+		{
+			return GSON.fromJson(new String(data, StandardCharsets.UTF_8), JsonElement.class);
+		}
+
+		JsonObject o = new JsonObject();
+		if (path.endsWith(".rs2asm"))
+		{
+			o.addProperty("text", new String(data, StandardCharsets.UTF_8));
+		}
+		o.addProperty("size", data.length);
+		o.addProperty("sha256", Hashing.sha256().hashBytes(data).toString());
+		return o;
+	}
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import com.google.common.primitives.Ints;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.ArchiveFiles;
+import net.runelite.cache.fs.FSFile;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.index.FileData;
+
+/**
+ * Checks every archive of a cache against its index metadata: that it is present, that its crc and
+ * revision match, that it decompresses, and that its file table splits it into the expected files.
+ * Archives are checked in parallel, and read straight from storage, bypassing the {@link ArchiveCache}
+ */
+public class CacheVerifier
+{
+	private static final Gson GSON = new Gson();
+
+	static class Problem
+	{
+		int index;
+		int archive;
+		String problem;
+
+		Problem(Archive archive, String problem)
+		{
+			this.index = archive.getIndex().getId();
+			this.archive = archive.getArchiveId();
+			this.problem = problem;
+		}
+	}
+
+	private final Store store;
+	private final LongAdder bytes = new LongAdder();
+	private final LongAdder verified = new LongAdder();
+	private final LongAdder encrypted = new LongAdder();
+	private final List<Problem> problems = new ArrayList<>();
+
+	private CacheVerifier(Store store)
+	{
+		this.store = store;
+	}
+
+	/**
+	 * Verifies {@code store}, returning a report listing every problem found
+	 */
+	public static JsonObject verify(Store store) throws Exception
+	{
+		CacheVerifier v = new CacheVerifier(store);
+		List<Archive> archives = store.getIndexes().stream()
+			.flatMap(i -> i.getArchives().stream())
+			.collect(Collectors.toList());
+
+		long start = System.nanoTime();
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		try
+		{
+			pool.submit(() -> Dumper.forEach(archives, v::check)).get();
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+
+		v.problems.sort(Comparator.<Problem>comparingInt(p -> p.index).thenComparingInt(p -> p.archive));
+
+		JsonObject out = new JsonObject();
+		out.addProperty("indexes", store.getIndexes().size());
+		out.addProperty("archives", archives.size());
+		out.addProperty("bytes", v.bytes.sum());
+		out.addProperty("verified", v.verified.sum());
+		out.addProperty("encrypted", v.encrypted.sum());
+		out.addProperty("corrupt", v.problems.size());
+		out.addProperty("millis", (System.nanoTime() - start) / 1_000_000);
+		out.add("problems", GSON.toJsonTree(v.problems));
+		return out;
+	}
+
+	private void problem(Archive archive, String problem)
+	{
+		synchronized (problems)
+		{
+			problems.add(new Problem(archive, problem));
+		}
+	}
+
+	private void check(Archive archive)
+	{
+		byte[] data;
+		try
+		{
+			data = store.getStorage().loadArchive(archive);
+		}
+		catch (Exception e)
+		{
+			problem(archive, "unreadable: " + e);
+			return;
+		}
+
+		if (data == null)
+		{
+			problem(archive, "missing");
+			return;
+		}
+		bytes.add(data.length);
+		Metrics.archiveRead(data.length);
+
+		if (data.length < 5)
+		{
+			problem(archive, "truncated");
+			return;
+		}
+
+		// the crc covers the container, but not the revision that may be appended to it
+		int compressedLength = Ints.fromBytes(data[1], data[2], data[3], data[4]);
+		long length = 5L + compressedLength + (data[0] != 0 ? 4 : 0);
+		if (compressedLength < 0 || length > data.length)
+		{
+			problem(archive, "truncated");
+			return;
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, (int) length);
+		if ((int) crc.getValue() != archive.getCrc())
+		{
+			problem(archive, "crc mismatch, expected " + archive.getCrc() + " but was " + (int) crc.getValue());
+			return;
+		}
+
+		if (data.length >= length + 2)
+		{
+			int revision = (data[(int) length] & 0xFF) << 8 | data[(int) length + 1] & 0xFF;
+			if (revision != (archive.getRevision() & 0xFFFF))
+			{
+				problem(archive, "revision mismatch, expected " + (archive.getRevision() & 0xFFFF) + " but was " + revision);
+				return;
+			}
+		}
+
+		byte[] decompressed;
+		try
+		{
+			decompressed = archive.decompress(data);
+		}
+		catch (Exception e)
+		{
+			if (archive.getIndex().getId() == IndexType.MAPS.getNumber())
+			{
+				// the crc matched, but without xtea keys there is no way to look inside
+				encrypted.increment();
+				return;
+			}
+
+			problem(archive, "doesn't decompress: " + e);
+			return;
+		}
+
+		FileData[] fileData = archive.getFileData();
+		if (fileData != null)
+		{
+			try
+			{
+				ArchiveFiles files = new ArchiveFiles();
+				for (FileData fd : fileData)
+				{
+					FSFile f = new FSFile(fd.getId());
+					f.setNameHash(fd.getNameHash());
+					files.addFile(f);
+				}
+				files.loadContents(decompressed);
+			}
+			catch (Exception e)
+			{
+				problem(archive, "file table doesn't match: " + e);
+				return;
+			}
+		}
+
+		verified.increment();
+	}
+}
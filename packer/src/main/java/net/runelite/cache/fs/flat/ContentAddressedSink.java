@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import com.google.common.hash.Hashing;
+import com.google.gson.GsonBuilder;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Stores each distinct payload once, under its sha256.
+ * <p>
+ * Into a {@link DirectorySink} blobs go to a blob directory, which may be shared by dumps of
+ * several revisions, and every path is a hard link to its blob. If a link can't be made the
+ * data is written as a normal file. Into any other sink blobs are written once as
+ * {@code blobs/<hash>}, and closing this sink writes {@code blobs.json}, mapping every path to its hash.
+ * <p>
+ * A directory written into always gets a {@value #BLOB_DIRECTORY} directory, even if the blobs are kept
+ * elsewhere, so later dumps into it know to replace files instead of writing through the links.
+ * <p>
+ * Closing this sink does not close the sink it writes into
+ */
+public class ContentAddressedSink implements DumpSink
+{
+	static final String BLOB_DIRECTORY = ".blobs";
+
+	private final DumpSink parent;
+	private final File blobs;
+	private final Set<String> written = ConcurrentHashMap.newKeySet();
+	private final Map<String, String> links = new ConcurrentSkipListMap<>();
+
+	/**
+	 * @param blobs where to keep blobs when writing into a {@link DirectorySink}, or null
+	 *              for {@value #BLOB_DIRECTORY} in it
+	 */
+	public ContentAddressedSink(DumpSink parent, File blobs) throws IOException
+	{
+		this.parent = parent;
+		if (parent instanceof DirectorySink)
+		{
+			File local = new File(((DirectorySink) parent).getDirectory(), BLOB_DIRECTORY);
+			Files.createDirectories(local.toPath());
+			((DirectorySink) parent).replaceFiles();
+			this.blobs = blobs != null ? blobs : local;
+		}
+		else
+		{
+			this.blobs = null;
+		}
+	}
+
+	@Override
+	public void write(String path, byte[] data) throws IOException
+	{
+		String hash = Hashing.sha256().hashBytes(data).toString();
+		if (blobs == null)
+		{
+			if (written.add(hash))
+			{
+				parent.write("blobs/" + hash, data);
+			}
+			links.put(path, hash);
+			return;
+		}
+
+		Path blob = blobs.toPath().resolve(hash.substring(0, 2)).resolve(hash);
+		if (written.add(hash) && !Files.exists(blob))
+		{
+			Files.createDirectories(blob.getParent());
+			Path tmp = Files.createTempFile(blob.getParent(), hash, ".tmp");
+			try
+			{
+				Files.write(tmp, data);
+				Files.move(tmp, blob, StandardCopyOption.ATOMIC_MOVE);
+			}
+			finally
+			{
+				Files.deleteIfExists(tmp);
+			}
+		}
+
+		Path target = new File(((DirectorySink) parent).getDirectory(), path).toPath();
+		Files.createDirectories(target.getParent());
+		Files.deleteIfExists(target);
+		try
+		{
+			Files.createLink(target, blob);
+		}
+		catch (IOException | UnsupportedOperationException e)
+		{
+			// the blob directory may be on another file system
+			parent.write(path, data);
+		}
+	}
+
+	@Override
+	public void flush() throws IOException
+	{
+		parent.flush();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		if (blobs == null)
+		{
+			parent.write("blobs.json", new GsonBuilder().setPrettyPrinting().create().toJson(links).getBytes(StandardCharsets.UTF_8));
+		}
+	}
+}
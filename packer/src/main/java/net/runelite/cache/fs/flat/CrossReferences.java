@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.BiFunction;
+import net.runelite.cache.ConfigType;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.definitions.DBRowDefinition;
+import net.runelite.cache.definitions.EnumDefinition;
+import net.runelite.cache.definitions.ParamDefinition;
+import net.runelite.cache.definitions.ScriptDefinition;
+import net.runelite.cache.definitions.loaders.DBRowLoader;
+import net.runelite.cache.definitions.loaders.EnumLoader;
+import net.runelite.cache.definitions.loaders.ItemLoader;
+import net.runelite.cache.definitions.loaders.NpcLoader;
+import net.runelite.cache.definitions.loaders.ObjectLoader;
+import net.runelite.cache.definitions.loaders.ParamLoader;
+import net.runelite.cache.definitions.loaders.ScriptLoader;
+import net.runelite.cache.definitions.loaders.StructLoader;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.script.Opcodes;
+import net.runelite.cache.util.ScriptVarType;
+
+/**
+ * Reverse references to items, npcs, sprites and varbits from enums, params, structs, item, npc and
+ * object params, dbrows and clientscripts.
+ * <p>
+ * Values are recognised by their declared {@link ScriptVarType}. Scripts only declare the types of
+ * their variables, so from them only varbit reads and writes are found
+ */
+class CrossReferences
+{
+	enum Target
+	{
+		ITEM,
+		NPC,
+		SPRITE,
+		VARBIT,
+	}
+
+	// target -> id -> source kind -> source ids
+	private final Map<Target, Map<Integer, Map<String, Set<Integer>>>> refs = new EnumMap<>(Target.class);
+	private final Map<Integer, ParamDefinition> params = new ConcurrentHashMap<>();
+
+	private CrossReferences()
+	{
+		for (Target t : Target.values())
+		{
+			refs.put(t, new ConcurrentHashMap<>());
+		}
+	}
+
+	Map<Integer, Map<String, Set<Integer>>> get(Target target)
+	{
+		return refs.get(target);
+	}
+
+	private static Target target(ScriptVarType type)
+	{
+		if (type == null)
+		{
+			return null;
+		}
+
+		switch (type)
+		{
+			case OBJ:
+			case NAMEDOBJ:
+				return Target.ITEM;
+			case NPC:
+				return Target.NPC;
+			case GRAPHIC:
+				return Target.SPRITE;
+			default:
+				return null;
+		}
+	}
+
+	private void add(Target target, int id, String source, int sourceId)
+	{
+		if (target == null || id < 0)
+		{
+			return;
+		}
+
+		refs.get(target)
+			.computeIfAbsent(id, k -> new ConcurrentHashMap<>())
+			.computeIfAbsent(source, k -> new ConcurrentSkipListSet<>())
+			.add(sourceId);
+	}
+
+	private void addParams(Map<Integer, Object> values, String source, int sourceId)
+	{
+		if (values == null)
+		{
+			return;
+		}
+
+		values.forEach((param, value) ->
+		{
+			ParamDefinition pd = params.get(param);
+			if (pd != null && value instanceof Integer)
+			{
+				add(target(pd.getType()), (Integer) value, source, sourceId);
+			}
+		});
+	}
+
+	static CrossReferences build(Store store) throws IOException
+	{
+		CrossReferences x = new CrossReferences();
+		Index configs = store.getIndex(IndexType.CONFIGS);
+
+		// struct and definition params are typed by their param
+		x.forEachConfig(store, configs, ConfigType.PARAMS, (id, b) -> new ParamLoader().load(b), (id, pd) ->
+		{
+			x.params.put(id, pd);
+			x.add(target(pd.getType()), pd.getDefaultInt(), "param", id);
+		});
+
+		List<Scan> scans = Arrays.asList(
+			() -> x.forEachConfig(store, configs, ConfigType.ENUM, new EnumLoader()::load, (id, e) -> x.addEnum(e)),
+			() -> x.forEachConfig(store, configs, ConfigType.STRUCT, new StructLoader()::load, (id, s) -> x.addParams(s.getParams(), "struct", id)),
+			() -> x.forEachConfig(store, configs, ConfigType.ITEM, new ItemLoader()::load, (id, d) -> x.addParams(d.getParams(), "item", id)),
+			() -> x.forEachConfig(store, configs, ConfigType.NPC, new NpcLoader()::load, (id, d) -> x.addParams(d.getParams(), "npc", id)),
+			() -> x.forEachConfig(store, configs, ConfigType.OBJECT, new ObjectLoader()::load, (id, d) -> x.addParams(d.getParams(), "object", id)),
+			() -> x.forEachConfig(store, configs, ConfigType.DBROW, new DBRowLoader()::load, (id, r) -> x.addRow(r)),
+			() -> x.scanScripts(store)
+		);
+		Dumper.forEach(scans, Scan::run);
+		return x;
+	}
+
+	@FunctionalInterface
+	private interface Scan
+	{
+		void run() throws IOException;
+	}
+
+	private void scanScripts(Store store) throws IOException
+	{
+		Index scripts = store.getIndex(IndexType.CLIENTSCRIPT);
+		if (scripts == null)
+		{
+			return;
+		}
+
+		ScriptLoader loader = new ScriptLoader()
+			.configureForRevision(scripts.getRevision());
+		Dumper.forEach(scripts.getArchives(), a ->
+		{
+			ScriptDefinition sd;
+			try
+			{
+				sd = loader.load(a.getArchiveId(), ArchiveCache.decompress(store, a));
+			}
+			catch (Exception e)
+			{
+				// RS2ASM writes these as their error, there is nothing to reference
+				return;
+			}
+			addScript(a.getArchiveId(), sd);
+		});
+	}
+
+	@FunctionalInterface
+	private interface Visitor<D>
+	{
+		void visit(int id, D def);
+	}
+
+	private <D> void forEachConfig(Store store, Index configs, ConfigType type, BiFunction<Integer, byte[], D> load, Visitor<D> visitor) throws IOException
+	{
+		Archive a = configs.getArchive(type.getId());
+		if (a == null)
+		{
+			return;
+		}
+
+		Dumper.forEach(ArchiveCache.getFiles(store, a).getFiles(), f ->
+		{
+			D d = load.apply(f.getFileId(), f.getContents());
+			if (d != null)
+			{
+				visitor.visit(f.getFileId(), d);
+			}
+		});
+	}
+
+	private void addEnum(EnumDefinition e)
+	{
+		Target key = target(e.getKeyType());
+		if (key != null && e.getKeys() != null)
+		{
+			for (int k : e.getKeys())
+			{
+				add(key, k, "enum", e.getId());
+			}
+		}
+
+		Target val = target(e.getValType());
+		if (val != null && e.getIntVals() != null)
+		{
+			for (int v : e.getIntVals())
+			{
+				add(val, v, "enum", e.getId());
+			}
+		}
+	}
+
+	private void addRow(DBRowDefinition row)
+	{
+		ScriptVarType[][] types = row.getColumnTypes();
+		Object[][] values = row.getColumnValues();
+		if (types == null || values == null)
+		{
+			return;
+		}
+
+		for (int c = 0; c < values.length && c < types.length; c++)
+		{
+			if (values[c] == null || types[c] == null || types[c].length == 0)
+			{
+				continue;
+			}
+
+			// values of a column are its tuples, flattened
+			for (int i = 0; i < values[c].length; i++)
+			{
+				if (values[c][i] instanceof Integer)
+				{
+					add(target(types[c][i % types[c].length]), (Integer) values[c][i], "dbrow", row.getId());
+				}
+			}
+		}
+	}
+
+	private void addScript(int id, ScriptDefinition sd)
+	{
+		int[] instructions = sd.getInstructions();
+		int[] operands = sd.getIntOperands();
+		if (instructions == null || operands == null)
+		{
+			return;
+		}
+
+		for (int i = 0; i < instructions.length; i++)
+		{
+			if (instructions[i] == Opcodes.PUSH_VARBIT || instructions[i] == Opcodes.POP_VARBIT)
+			{
+				add(Target.VARBIT, operands[i], "script", id);
+			}
+		}
+	}
+}
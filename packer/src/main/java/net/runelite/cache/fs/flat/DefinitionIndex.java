@@ -0,0 +1,597 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import net.runelite.cache.ConfigType;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.definitions.DBRowDefinition;
+import net.runelite.cache.definitions.DBTableIndex;
+import net.runelite.cache.definitions.ItemDefinition;
+import net.runelite.cache.definitions.NpcDefinition;
+import net.runelite.cache.definitions.ObjectDefinition;
+import net.runelite.cache.definitions.ParamDefinition;
+import net.runelite.cache.definitions.loaders.DBRowLoader;
+import net.runelite.cache.definitions.loaders.DBTableIndexLoader;
+import net.runelite.cache.definitions.loaders.ItemLoader;
+import net.runelite.cache.definitions.loaders.NpcLoader;
+import net.runelite.cache.definitions.loaders.ObjectLoader;
+import net.runelite.cache.definitions.loaders.ParamLoader;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.FSFile;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.util.ScriptVarType;
+
+/**
+ * Item, npc, object and dbrow definitions decoded once into sorted primitive columns, so filters
+ * like "items with param X = v" are binary searches instead of walking every definition.
+ * <p>
+ * Every lookup returns ids in ascending order. Definitions are dropped after loading, only their
+ * names, params and db columns are kept
+ */
+public class DefinitionIndex
+{
+	private static final int[] NONE = new int[0];
+
+	public enum Type
+	{
+		ITEM,
+		NPC,
+		OBJECT,
+		DBROW,
+	}
+
+	private final Map<Type, Entities> entities = new HashMap<>();
+	private final Map<Integer, ParamDefinition> params;
+	private final Map<Integer, DbTable> tables;
+
+	private DefinitionIndex(Map<Integer, ParamDefinition> params, Map<Integer, DbTable> tables)
+	{
+		this.params = params;
+		this.tables = tables;
+	}
+
+	/**
+	 * Names and params of one definition type
+	 */
+	private static class Entities
+	{
+		private final int[] ids;
+		private final String[] names;
+		private final String[] lowerNames;
+		private final Map<String, int[]> byName;
+		private final Map<Integer, ParamColumn> params;
+
+		private <D> Entities(List<D> defs, ToIntFunction<D> id, Function<D, String> name, Function<D, Map<Integer, Object>> params)
+		{
+			defs.sort((a, b) -> Integer.compare(id.applyAsInt(a), id.applyAsInt(b)));
+			ids = new int[defs.size()];
+			names = new String[defs.size()];
+			Map<Integer, List<D>> withParam = new HashMap<>();
+			for (int i = 0; i < defs.size(); i++)
+			{
+				D d = defs.get(i);
+				ids[i] = id.applyAsInt(d);
+				names[i] = name.apply(d);
+				Map<Integer, Object> p = params.apply(d);
+				if (p != null)
+				{
+					for (Integer k : p.keySet())
+					{
+						withParam.computeIfAbsent(k, x -> new ArrayList<>()).add(d);
+					}
+				}
+			}
+
+			byName = new HashMap<>();
+			lowerNames = new String[ids.length];
+			Map<String, List<Integer>> names = new HashMap<>();
+			for (int i = 0; i < ids.length; i++)
+			{
+				if (this.names[i] != null)
+				{
+					lowerNames[i] = this.names[i].toLowerCase(Locale.ROOT);
+					names.computeIfAbsent(lowerNames[i], x -> new ArrayList<>()).add(ids[i]);
+				}
+			}
+			names.forEach((k, v) -> byName.put(k, v.stream().mapToInt(Integer::intValue).toArray()));
+
+			this.params = new HashMap<>();
+			withParam.forEach((param, owners) -> this.params.put(param, new ParamColumn(param, owners, id, params)));
+		}
+	}
+
+	/**
+	 * The values of one param, for every definition that sets it
+	 */
+	private static class ParamColumn
+	{
+		private final int[] ids;
+		private final String[] strings;
+		// (value << 32 | id) for int params, sorted so a value is a contiguous range
+		private final long[] byValue;
+
+		private <D> ParamColumn(int param, List<D> owners, ToIntFunction<D> id, Function<D, Map<Integer, Object>> params)
+		{
+			ids = new int[owners.size()];
+			String[] strings = new String[owners.size()];
+			long[] byValue = new long[owners.size()];
+			boolean allInts = true;
+			for (int i = 0; i < owners.size(); i++)
+			{
+				D d = owners.get(i);
+				ids[i] = id.applyAsInt(d);
+				Object v = params.apply(d).get(param);
+				if (v instanceof Integer)
+				{
+					byValue[i] = (long) (Integer) v << 32 | ids[i] & 0xFFFFFFFFL;
+				}
+				else
+				{
+					allInts = false;
+				}
+				strings[i] = String.valueOf(v);
+			}
+
+			if (allInts)
+			{
+				Arrays.sort(byValue);
+				this.byValue = byValue;
+				this.strings = null;
+			}
+			else
+			{
+				this.byValue = null;
+				this.strings = strings;
+			}
+		}
+
+		private int[] find(String value)
+		{
+			if (byValue == null)
+			{
+				return IntStream.range(0, ids.length)
+					.filter(i -> strings[i].equals(value))
+					.map(i -> ids[i])
+					.toArray();
+			}
+
+			Integer v = parseInt(value);
+			if (v == null)
+			{
+				return NONE;
+			}
+
+			long lo = (long) v << 32;
+			int from = -Arrays.binarySearch(byValue, lo - 1) - 1;
+			int to = from;
+			while (to < byValue.length && byValue[to] >>> 32 == (lo >>> 32))
+			{
+				to++;
+			}
+
+			int[] out = new int[to - from];
+			for (int i = from; i < to; i++)
+			{
+				out[i - from] = (int) byValue[i];
+			}
+			return out;
+		}
+	}
+
+	private static class DbTable
+	{
+		private int[] rows = NONE;
+		private Object[][][] values;
+		// column -> first tuple value -> rows, from the table's DBTableIndex
+		private final Map<Integer, Map<Object, int[]>> indexed = new ConcurrentHashMap<>();
+
+		private int[] scan(int column, String value)
+		{
+			List<Integer> out = new ArrayList<>();
+			for (int r = 0; r < rows.length; r++)
+			{
+				Object[][] cols = values[r];
+				if (cols == null || column >= cols.length || cols[column] == null)
+				{
+					continue;
+				}
+				for (Object v : cols[column])
+				{
+					if (v != null && String.valueOf(v).equals(value))
+					{
+						out.add(rows[r]);
+						break;
+					}
+				}
+			}
+			return out.stream().mapToInt(Integer::intValue).toArray();
+		}
+	}
+
+	public static DefinitionIndex load(Store store) throws IOException
+	{
+		Index configs = store.getIndex(IndexType.CONFIGS);
+
+		Map<Integer, ParamDefinition> params = new TreeMap<>(decode(store, configs, ConfigType.PARAMS, (id, b) -> new ParamLoader().load(b)));
+
+		Map<Integer, DbTable> tables = new HashMap<>();
+		Map<Integer, List<DBRowDefinition>> rowsByTable = decode(store, configs, ConfigType.DBROW, new DBRowLoader()::load).values().stream()
+			.collect(Collectors.groupingBy(DBRowDefinition::getTableId));
+		rowsByTable.forEach((table, rows) ->
+		{
+			rows.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+			DbTable t = new DbTable();
+			t.rows = rows.stream().mapToInt(DBRowDefinition::getId).toArray();
+			t.values = rows.stream().map(DBRowDefinition::getColumnValues).toArray(Object[][][]::new);
+			tables.put(table, t);
+		});
+
+		Index dbIndexes = store.getIndex(IndexType.DBTABLEINDEX);
+		if (dbIndexes != null)
+		{
+			DBTableIndexLoader loader = new DBTableIndexLoader();
+			for (Archive a : dbIndexes.getArchives())
+			{
+				DbTable t = tables.computeIfAbsent(a.getArchiveId(), k -> new DbTable());
+				ArchiveCache.getFiles(store, a).getFiles().parallelStream()
+					.filter(f -> f.getFileId() > 0)
+					.map(f -> loader.load(a.getArchiveId(), f.getFileId() - 1, f.getContents()))
+					.filter(ti -> ti.getEnumValues() != null && !ti.getEnumValues().isEmpty())
+					.forEach(ti ->
+					{
+						Map<Object, int[]> values = new HashMap<>();
+						ti.getEnumValues().get(0).forEach((k, v) -> values.put(k, v.stream().mapToInt(Integer::intValue).sorted().toArray()));
+						t.indexed.put(ti.getColumnId(), values);
+					});
+			}
+		}
+
+		DefinitionIndex di = new DefinitionIndex(params, tables);
+		di.entities.put(Type.ITEM, new Entities(new ArrayList<>(decode(store, configs, ConfigType.ITEM, new ItemLoader()::load).values()),
+			ItemDefinition::getId, ItemDefinition::getName, ItemDefinition::getParams));
+		di.entities.put(Type.NPC, new Entities(new ArrayList<>(decode(store, configs, ConfigType.NPC, new NpcLoader()::load).values()),
+			NpcDefinition::getId, NpcDefinition::getName, NpcDefinition::getParams));
+		di.entities.put(Type.OBJECT, new Entities(new ArrayList<>(decode(store, configs, ConfigType.OBJECT, new ObjectLoader()::load).values()),
+			ObjectDefinition::getId, ObjectDefinition::getName, ObjectDefinition::getParams));
+		return di;
+	}
+
+	private static <D> Map<Integer, D> decode(Store store, Index configs, ConfigType type, BiFunction<Integer, byte[], D> load) throws IOException
+	{
+		Archive a = configs.getArchive(type.getId());
+		if (a == null)
+		{
+			return new HashMap<>();
+		}
+
+		Collection<FSFile> files = ArchiveCache.getFiles(store, a).getFiles();
+		Map<Integer, D> out = new ConcurrentHashMap<>();
+		files.parallelStream().forEach(f ->
+		{
+			D d = load.apply(f.getFileId(), f.getContents());
+			if (d != null)
+			{
+				out.put(f.getFileId(), d);
+			}
+		});
+		return out;
+	}
+
+	/**
+	 * Runs a query such as {@code item?name=abyssal whip&param=656:1} or {@code dbrow?table=12&column=0:1234}.
+	 * The filters, all of which must match, are {@code name=<name>}, {@code name~<text>},
+	 * {@code param=<id>}, {@code param=<id>:<value>}, and for dbrows {@code table=<id>} and
+	 * {@code column=<id>:<value>}, which needs a table
+	 */
+	public int[] query(String query)
+	{
+		int q = query.indexOf('?');
+		Type type = Type.valueOf((q == -1 ? query : query.substring(0, q)).trim().toUpperCase(Locale.ROOT));
+		int[] result = null;
+		Integer table = null;
+		List<String> filters = q == -1 ? new ArrayList<>() : new ArrayList<>(Arrays.asList(query.substring(q + 1).split("&")));
+
+		// the table has to be known before columns can be looked up
+		filters.sort((a, b) -> Boolean.compare(!a.startsWith("table="), !b.startsWith("table=")));
+		for (String filter : filters)
+		{
+			int op = 0;
+			while (op < filter.length() && filter.charAt(op) != '=' && filter.charAt(op) != '~')
+			{
+				op++;
+			}
+			if (op == filter.length())
+			{
+				throw new IllegalArgumentException("bad filter \"" + filter + "\"");
+			}
+
+			String key = filter.substring(0, op);
+			char operator = filter.charAt(op);
+			String value = filter.substring(op + 1);
+			int colon = value.indexOf(':');
+
+			int[] ids;
+			if (type == Type.DBROW)
+			{
+				if ("table".equals(key) && operator == '=')
+				{
+					table = Integer.parseInt(value);
+					ids = dbRows(table);
+				}
+				else if ("column".equals(key) && operator == '=' && colon != -1 && table != null)
+				{
+					ids = dbRows(table, Integer.parseInt(value.substring(0, colon)), value.substring(colon + 1));
+				}
+				else
+				{
+					throw new IllegalArgumentException("bad dbrow filter \"" + filter + "\"");
+				}
+			}
+			else if ("name".equals(key))
+			{
+				ids = operator == '~' ? nameContains(type, value) : withName(type, value);
+			}
+			else if ("param".equals(key) && operator == '=')
+			{
+				ids = colon == -1
+					? withParam(type, Integer.parseInt(value))
+					: withParam(type, Integer.parseInt(value.substring(0, colon)), value.substring(colon + 1));
+			}
+			else
+			{
+				throw new IllegalArgumentException("bad filter \"" + filter + "\"");
+			}
+
+			result = result == null ? ids : intersect(result, ids);
+		}
+
+		return result == null ? all(type) : result;
+	}
+
+	/**
+	 * All ids of a type
+	 */
+	public int[] all(Type type)
+	{
+		if (type == Type.DBROW)
+		{
+			return tables.values().stream().flatMapToInt(t -> Arrays.stream(t.rows)).sorted().toArray();
+		}
+		return entities.get(type).ids.clone();
+	}
+
+	public String getName(Type type, int id)
+	{
+		Entities e = entities.get(type);
+		int i = e == null ? -1 : Arrays.binarySearch(e.ids, id);
+		return i < 0 ? null : e.names[i];
+	}
+
+	/**
+	 * Definitions whose name is {@code name}, ignoring case
+	 */
+	public int[] withName(Type type, String name)
+	{
+		int[] ids = entities.get(type).byName.get(name.toLowerCase(Locale.ROOT));
+		return ids == null ? NONE : ids.clone();
+	}
+
+	/**
+	 * Definitions whose name contains {@code text}, ignoring case
+	 */
+	public int[] nameContains(Type type, String text)
+	{
+		Entities e = entities.get(type);
+		String t = text.toLowerCase(Locale.ROOT);
+		return IntStream.range(0, e.ids.length)
+			.filter(i -> e.lowerNames[i] != null && e.lowerNames[i].contains(t))
+			.map(i -> e.ids[i])
+			.toArray();
+	}
+
+	/**
+	 * Definitions that set {@code param}
+	 */
+	public int[] withParam(Type type, int param)
+	{
+		ParamColumn c = entities.get(type).params.get(param);
+		return c == null ? NONE : c.ids.clone();
+	}
+
+	/**
+	 * Definitions where {@code param} is {@code value}. If that is the param's default, definitions
+	 * that don't set it match too
+	 */
+	public int[] withParam(Type type, int param, String value)
+	{
+		Entities e = entities.get(type);
+		ParamColumn c = e.params.get(param);
+		int[] set = c == null ? NONE : c.find(value);
+
+		ParamDefinition def = params.get(param);
+		if (def != null && value.equals(def.getType() == ScriptVarType.STRING ? def.getDefaultString() : String.valueOf(def.getDefaultInt())))
+		{
+			int[] unset = c == null ? e.ids.clone() : difference(e.ids, c.ids);
+			return union(set, unset);
+		}
+		return set;
+	}
+
+	/**
+	 * Rows of a db table
+	 */
+	public int[] dbRows(int table)
+	{
+		DbTable t = tables.get(table);
+		return t == null ? NONE : t.rows.clone();
+	}
+
+	/**
+	 * Rows of a db table where {@code column} holds {@code value}. Indexed columns are looked up in
+	 * the table's DBTableIndex, which covers the first value of each tuple, others are scanned
+	 */
+	public int[] dbRows(int table, int column, String value)
+	{
+		DbTable t = tables.get(table);
+		if (t == null)
+		{
+			return NONE;
+		}
+
+		Map<Object, int[]> index = t.indexed.get(column);
+		if (index == null)
+		{
+			return t.scan(column, value);
+		}
+
+		for (Object key : keys(value))
+		{
+			int[] rows = index.get(key);
+			if (rows != null)
+			{
+				return rows.clone();
+			}
+		}
+		return NONE;
+	}
+
+	// the key types a DBTableIndex may use for a value
+	private static List<Object> keys(String value)
+	{
+		List<Object> keys = new ArrayList<>();
+		Integer i = parseInt(value);
+		if (i != null)
+		{
+			keys.add(i);
+		}
+		try
+		{
+			keys.add(Long.parseLong(value));
+		}
+		catch (NumberFormatException e)
+		{
+		}
+		keys.add(value);
+		return keys;
+	}
+
+	private static Integer parseInt(String value)
+	{
+		try
+		{
+			return Integer.parseInt(value);
+		}
+		catch (NumberFormatException e)
+		{
+			return null;
+		}
+	}
+
+	private static int[] intersect(int[] a, int[] b)
+	{
+		int[] out = new int[Math.min(a.length, b.length)];
+		int n = 0;
+		for (int i = 0, j = 0; i < a.length && j < b.length; )
+		{
+			if (a[i] < b[j])
+			{
+				i++;
+			}
+			else if (a[i] > b[j])
+			{
+				j++;
+			}
+			else
+			{
+				out[n++] = a[i];
+				i++;
+				j++;
+			}
+		}
+		return Arrays.copyOf(out, n);
+	}
+
+	private static int[] union(int[] a, int[] b)
+	{
+		int[] out = new int[a.length + b.length];
+		int n = 0;
+		int i = 0;
+		int j = 0;
+		while (i < a.length || j < b.length)
+		{
+			int v;
+			if (j >= b.length || (i < a.length && a[i] < b[j]))
+			{
+				v = a[i++];
+			}
+			else if (i >= a.length || b[j] < a[i])
+			{
+				v = b[j++];
+			}
+			else
+			{
+				v = a[i++];
+				j++;
+			}
+			out[n++] = v;
+		}
+		return Arrays.copyOf(out, n);
+	}
+
+	private static int[] difference(int[] a, int[] b)
+	{
+		int[] out = new int[a.length];
+		int n = 0;
+		int j = 0;
+		for (int v : a)
+		{
+			while (j < b.length && b[j] < v)
+			{
+				j++;
+			}
+			if (j >= b.length || b[j] != v)
+			{
+				out[n++] = v;
+			}
+		}
+		return Arrays.copyOf(out, n);
+	}
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import net.runelite.cache.ConfigType;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+
+/**
+ * Serves the output of every {@link Dumper} from a loaded {@link Store} over HTTP on the loopback
+ * interface, so tools can look up definitions without starting a JVM and loading the cache.
+ * <p>
+ * {@code GET /<type>/<path>} returns the file {@code dump} would write at {@code <type>/<path>},
+ * for example {@code /item_defs/4151.json}. {@code GET /<type>/<id>} lists the files of an entry,
+ * and {@code GET /} lists the types. Entries are decoded on first use by running the dumper with a
+ * manifest selecting only them, and kept in a size bounded cache. Paths that don't belong to an
+ * entry, such as {@code /xrefs/item/4151.json} or {@code /sprite_atlas/index.json}, are served
+ * from the dumper's whole output
+ */
+public class DefinitionServer
+{
+	private static final Gson GSON = new Gson();
+
+	// output of a dumper that ignores its manifest and always writes every entry
+	private static final int ALL = -1;
+
+	private final Store store;
+	private final HttpServer server;
+	private final ExecutorService executor;
+
+	private final Cache<String, Map<String, byte[]>> outputs = CacheBuilder.newBuilder()
+		.maximumWeight(Runtime.getRuntime().maxMemory() / 8)
+		.weigher((String k, Map<String, byte[]> v) -> (int) Math.min(Integer.MAX_VALUE, v.values().stream().mapToLong(b -> b.length + 64).sum()))
+		.build();
+
+	public DefinitionServer(Store store, int port, int threads) throws IOException
+	{
+		this.store = store;
+		this.executor = Executors.newFixedThreadPool(threads);
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		this.server.createContext("/", this::handle);
+		this.server.setExecutor(executor);
+	}
+
+	public void start()
+	{
+		server.start();
+	}
+
+	public void stop()
+	{
+		server.stop(0);
+		executor.shutdown();
+	}
+
+	public int getPort()
+	{
+		return server.getAddress().getPort();
+	}
+
+	private void handle(HttpExchange ex) throws IOException
+	{
+		try
+		{
+			if (!"GET".equals(ex.getRequestMethod()) && !"HEAD".equals(ex.getRequestMethod()))
+			{
+				send(ex, 405, "text/plain", "GET only\n".getBytes(StandardCharsets.UTF_8));
+				return;
+			}
+
+			String path = ex.getRequestURI().getPath();
+			if ("/".equals(path))
+			{
+				String types = GSON.toJson(Stream.of(Dumper.values()).map(d -> d.name().toLowerCase()).collect(Collectors.toList()));
+				send(ex, 200, "application/json", types.getBytes(StandardCharsets.UTF_8));
+				return;
+			}
+
+			int slash = path.indexOf('/', 1);
+			Dumper dumper = slash == -1 ? null : dumper(path.substring(1, slash));
+			String file = slash == -1 ? "" : path.substring(slash + 1);
+			int id = DumpManifest.entryId(file);
+			if (dumper == null || file.isEmpty())
+			{
+				notFound(ex);
+				return;
+			}
+
+			String etag = id < 0 ? etag(dumper) : etag(dumper, id);
+			if (etag == null)
+			{
+				notFound(ex);
+				return;
+			}
+			ex.getResponseHeaders().set("ETag", etag);
+			if (etag.equals(ex.getRequestHeaders().getFirst("If-None-Match")))
+			{
+				send(ex, 304, null, null);
+				return;
+			}
+
+			Map<String, byte[]> out = id < 0 ? loadAll(dumper) : load(dumper, id);
+			if (id >= 0 && file.equals(Integer.toString(id)) && !out.containsKey(file))
+			{
+				TreeSet<String> files = out.keySet().stream()
+					.filter(f -> DumpManifest.entryId(f) == id)
+					.collect(Collectors.toCollection(TreeSet::new));
+				if (files.isEmpty())
+				{
+					notFound(ex);
+					return;
+				}
+
+				send(ex, 200, "application/json", GSON.toJson(files).getBytes(StandardCharsets.UTF_8));
+				return;
+			}
+
+			byte[] data = out.get(file);
+			if (data == null)
+			{
+				notFound(ex);
+				return;
+			}
+			send(ex, 200, contentType(file), data);
+		}
+		catch (Exception e)
+		{
+			send(ex, 500, "text/plain", (e + "\n").getBytes(StandardCharsets.UTF_8));
+		}
+		finally
+		{
+			ex.close();
+		}
+	}
+
+	private static Dumper dumper(String name)
+	{
+		try
+		{
+			return Dumper.valueOf(name.toUpperCase());
+		}
+		catch (IllegalArgumentException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * The version of the archive an entry is decoded from, or of its whole index if the entry
+	 * isn't an archive of its own
+	 */
+	private String etag(Dumper dumper, int id)
+	{
+		Index index = store.findIndex(dumper.getConfigType() != null ? IndexType.CONFIGS.getNumber() : dumper.getIndex());
+		if (index == null)
+		{
+			return null;
+		}
+
+		Archive archive = index.getArchive(dumper.getConfigType() != null ? dumper.getConfigType().getId() : id);
+		long version = archive != null ? DumpManifest.version(archive) : DumpManifest.version(index);
+		return "\"" + Long.toHexString(version) + "\"";
+	}
+
+	/**
+	 * The combined version of everything a dumper reads, for output that isn't a single entry's
+	 */
+	private String etag(Dumper dumper)
+	{
+		Hasher h = Hashing.murmur3_128().newHasher();
+		for (int i : dumper.getIndexes())
+		{
+			Index index = store.findIndex(i);
+			if (index == null)
+			{
+				return null;
+			}
+			h.putLong(DumpManifest.version(index));
+		}
+
+		Index configs = store.findIndex(IndexType.CONFIGS.getNumber());
+		for (ConfigType type : dumper.getConfigTypes())
+		{
+			Archive archive = configs == null ? null : configs.getArchive(type.getId());
+			if (archive == null)
+			{
+				return null;
+			}
+			h.putLong(DumpManifest.version(archive));
+		}
+		return "\"" + Long.toHexString(h.hash().asLong()) + "\"";
+	}
+
+	private Map<String, byte[]> loadAll(Dumper dumper) throws Exception
+	{
+		try
+		{
+			return outputs.get(dumper.name() + "/" + ALL, () ->
+			{
+				MemorySink sink = new MemorySink();
+				dumper.dump(store, sink, DumpManifest.none());
+				return sink.getFiles();
+			});
+		}
+		catch (ExecutionException | UncheckedExecutionException e)
+		{
+			Throwables.throwIfInstanceOf(e.getCause(), Exception.class);
+			throw e;
+		}
+	}
+
+	private Map<String, byte[]> load(Dumper dumper, int id) throws Exception
+	{
+		Map<String, byte[]> all = outputs.getIfPresent(dumper.name() + "/" + ALL);
+		if (all != null)
+		{
+			return all;
+		}
+
+		try
+		{
+			return outputs.get(dumper.name() + "/" + id, () ->
+			{
+				MemorySink sink = new MemorySink();
+				dumper.dump(store, sink, DumpManifest.only(Collections.singleton(id)));
+
+				Map<String, byte[]> files = sink.getFiles();
+				if (files.keySet().stream().anyMatch(f -> DumpManifest.entryId(f) != id))
+				{
+					outputs.put(dumper.name() + "/" + ALL, files);
+				}
+				return files;
+			});
+		}
+		catch (ExecutionException | UncheckedExecutionException e)
+		{
+			Throwables.throwIfInstanceOf(e.getCause(), Exception.class);
+			throw e;
+		}
+	}
+
+	private static String contentType(String file)
+	{
+		if (file.endsWith(".json"))
+		{
+			return "application/json";
+		}
+		if (file.endsWith(".png"))
+		{
+			return "image/png";
+		}
+		if (file.endsWith(".rs2asm") || file.endsWith(".hash"))
+		{
+			return "text/plain; charset=utf-8";
+		}
+		return "application/octet-stream";
+	}
+
+	private static void notFound(HttpExchange ex) throws IOException
+	{
+		send(ex, 404, "text/plain", "not found\n".getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void send(HttpExchange ex, int status, String contentType, byte[] body) throws IOException
+	{
+		if (contentType != null)
+		{
+			ex.getResponseHeaders().set("Content-Type", contentType);
+		}
+
+		boolean head = "HEAD".equals(ex.getRequestMethod());
+		if (body == null || head)
+		{
+			ex.sendResponseHeaders(status, -1);
+			return;
+		}
+
+		ex.sendResponseHeaders(status, body.length);
+		try (OutputStream os = ex.getResponseBody())
+		{
+			os.write(body);
+		}
+	}
+}
@@ -0,0 +1,443 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Writes dump output into a directory. With I/O threads, writes are handed to a writer stage
+ * shared by the sink and its children, so decoders don't wait on the file system: it holds up to
+ * {@value #QUEUE_BYTES} bytes of queued output, creates the directories of each batch of writes
+ * before writing them, and writes on a fixed number of threads
+ */
+public class DirectorySink implements DumpSink
+{
+	private static final int QUEUE_BYTES = 64 << 20;
+	private static final int BATCH_SIZE = 256;
+	// what a queued write costs beyond its data, so many empty files still fill the queue
+	private static final int ENTRY_OVERHEAD = 128;
+
+	private final File directory;
+	private final Writer writer;
+	// writes through this sink that haven't completed yet
+	private final Pending pending = new Pending();
+
+	public DirectorySink(File directory)
+	{
+		this(directory, 0, false);
+	}
+
+	/**
+	 * @param ioThreads threads writing files, or 0 to write them on the caller's thread
+	 * @param fsync     whether {@link #close()} forces everything written to disk
+	 */
+	public DirectorySink(File directory, int ioThreads, boolean fsync)
+	{
+		this(directory, new Writer(ioThreads, fsync, new File(directory, ContentAddressedSink.BLOB_DIRECTORY).isDirectory()));
+		writer.owner = this;
+	}
+
+	private DirectorySink(File directory, Writer writer)
+	{
+		this.directory = directory;
+		this.writer = writer;
+		writer.mkdirs(directory);
+	}
+
+	public File getDirectory()
+	{
+		return directory;
+	}
+
+	/**
+	 * Makes every later write replace its file instead of writing through it, as files may now
+	 * be hard links into a blob directory
+	 */
+	void replaceFiles()
+	{
+		writer.replace = true;
+	}
+
+	@Override
+	public void write(String path, byte[] data) throws IOException
+	{
+		writer.write(new Entry(new File(directory, path), data, pending, Metrics.current()));
+	}
+
+	@Override
+	public DirectorySink child(String directory)
+	{
+		return new DirectorySink(new File(this.directory, directory), writer);
+	}
+
+	/**
+	 * Waits until everything written through this sink is in its file
+	 */
+	@Override
+	public void flush() throws IOException
+	{
+		pending.await();
+		writer.checkFailure();
+	}
+
+	/**
+	 * Closing the sink that created the writer stage waits for every queued write, and fsyncs
+	 * them if asked to. Closing a child only flushes it
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if (writer.owner == this)
+		{
+			writer.close();
+		}
+		else
+		{
+			flush();
+		}
+	}
+
+	private static final class Pending
+	{
+		private int count;
+
+		synchronized void add()
+		{
+			count++;
+		}
+
+		synchronized void done()
+		{
+			if (--count == 0)
+			{
+				notifyAll();
+			}
+		}
+
+		synchronized void await() throws InterruptedIOException
+		{
+			try
+			{
+				while (count > 0)
+				{
+					wait();
+				}
+			}
+			catch (InterruptedException e)
+			{
+				throw new InterruptedIOException();
+			}
+		}
+	}
+
+	private static final class Entry
+	{
+		final File file;
+		final byte[] data;
+		final Pending pending;
+		final Metrics.Stage stage;
+
+		Entry(File file, byte[] data, Pending pending, Metrics.Stage stage)
+		{
+			this.file = file;
+			this.data = data;
+			this.pending = pending;
+			this.stage = stage;
+		}
+
+		int weight()
+		{
+			return Math.min(data.length + ENTRY_OVERHEAD, QUEUE_BYTES);
+		}
+	}
+
+	private static final class Writer
+	{
+		private static final Entry END = new Entry(null, new byte[0], null, null);
+
+		// directories this writer has created, so each is only created once
+		private final Set<File> created = ConcurrentHashMap.newKeySet();
+		// set if files may be hard links made by a ContentAddressedSink, which must not be written through
+		private volatile boolean replace;
+		private final Queue<Path> written;
+
+		private final ExecutorService threads;
+		private final List<Future<?>> workers = new ArrayList<>();
+		private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+		private final Semaphore queuedBytes = new Semaphore(QUEUE_BYTES);
+		private volatile IOException failure;
+		private DirectorySink owner;
+
+		Writer(int ioThreads, boolean fsync, boolean replace)
+		{
+			this.replace = replace;
+			this.written = fsync ? new ConcurrentLinkedQueue<>() : null;
+			this.threads = Executors.newFixedThreadPool(Math.max(ioThreads, 1), r ->
+			{
+				Thread t = new Thread(r, "DirectorySink writer");
+				t.setDaemon(true);
+				return t;
+			});
+			for (int i = 0; i < ioThreads; i++)
+			{
+				workers.add(threads.submit(this::run));
+			}
+		}
+
+		void mkdirs(File dir)
+		{
+			if (created.add(dir))
+			{
+				dir.mkdirs();
+			}
+		}
+
+		void write(Entry e) throws IOException
+		{
+			checkFailure();
+			if (workers.isEmpty())
+			{
+				store(e);
+				checkFailure();
+				return;
+			}
+
+			e.pending.add();
+			try
+			{
+				queuedBytes.acquire(e.weight());
+			}
+			catch (InterruptedException ex)
+			{
+				e.pending.done();
+				throw new InterruptedIOException();
+			}
+			queue.add(e);
+		}
+
+		private void run()
+		{
+			List<Entry> batch = new ArrayList<>(BATCH_SIZE);
+			try
+			{
+				for (; ; )
+				{
+					batch.add(queue.take());
+					queue.drainTo(batch, BATCH_SIZE - 1);
+
+					boolean end = batch.remove(END);
+					// create every directory the batch needs up front, rather than between writes
+					try
+					{
+						for (Entry e : batch)
+						{
+							mkdirs(e.file.getParentFile());
+						}
+					}
+					catch (RuntimeException ex)
+					{
+						// store records it for the entry that hits it again, this must not kill the worker
+					}
+					for (Entry e : batch)
+					{
+						try
+						{
+							store(e);
+						}
+						finally
+						{
+							queuedBytes.release(e.weight());
+							e.pending.done();
+						}
+					}
+					batch.clear();
+
+					if (end)
+					{
+						// let the other threads see it too
+						queue.add(END);
+						return;
+					}
+				}
+			}
+			catch (InterruptedException e)
+			{
+				failure = new InterruptedIOException();
+			}
+		}
+
+		private void store(Entry e)
+		{
+			// after a failure keep draining, so producers don't block forever
+			if (failure != null)
+			{
+				return;
+			}
+
+			Metrics.Stage prev = Metrics.enter(e.stage);
+			try
+			{
+				File parent = e.file.getParentFile();
+				mkdirs(parent);
+				if (replace)
+				{
+					Files.deleteIfExists(e.file.toPath());
+				}
+				try
+				{
+					Files.write(e.file.toPath(), e.data);
+				}
+				catch (NoSuchFileException ex)
+				{
+					// another thread may still be creating it, or an incremental dump removed it since
+					parent.mkdirs();
+					Files.write(e.file.toPath(), e.data);
+				}
+
+				if (written != null)
+				{
+					written.add(e.file.toPath());
+				}
+			}
+			catch (IOException ex)
+			{
+				failure = ex;
+			}
+			catch (RuntimeException ex)
+			{
+				// a worker that died here would leave the rest of its batch pending, and nothing draining the queue
+				failure = new IOException("error writing \"" + e.file + "\"", ex);
+			}
+			finally
+			{
+				Metrics.exit(prev);
+			}
+		}
+
+		void close() throws IOException
+		{
+			try
+			{
+				if (!workers.isEmpty())
+				{
+					queue.add(END);
+					for (Future<?> w : workers)
+					{
+						w.get();
+					}
+				}
+				checkFailure();
+
+				if (written != null)
+				{
+					sync();
+				}
+			}
+			catch (InterruptedException e)
+			{
+				throw new InterruptedIOException();
+			}
+			catch (ExecutionException e)
+			{
+				throw new IOException(e.getCause());
+			}
+			finally
+			{
+				threads.shutdownNow();
+			}
+		}
+
+		// one pass at the end instead of a sync per file, spread over the writer threads
+		private void sync() throws IOException, InterruptedException, ExecutionException
+		{
+			List<Path> paths = new ArrayList<>(written);
+			created.forEach(d -> paths.add(d.toPath()));
+
+			List<Future<?>> syncs = new ArrayList<>();
+			int parts = Math.max(workers.size(), 1);
+			for (int i = 0; i < parts; i++)
+			{
+				List<Path> part = paths.subList(paths.size() * i / parts, paths.size() * (i + 1) / parts);
+				syncs.add(threads.submit(() ->
+				{
+					for (Path p : part)
+					{
+						force(p);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> f : syncs)
+			{
+				f.get();
+			}
+		}
+
+		private static void force(Path path) throws IOException
+		{
+			try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ))
+			{
+				ch.force(true);
+			}
+			catch (IOException e)
+			{
+				// directories can't be opened on every platform, and may have been removed since
+				if (!Files.isDirectory(path) && Files.exists(path))
+				{
+					throw e;
+				}
+			}
+		}
+
+		void checkFailure() throws IOException
+		{
+			IOException e = failure;
+			if (e != null)
+			{
+				throw new IOException("error writing dump output", e);
+			}
+		}
+	}
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import com.google.gson.Gson;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+
+/**
+ * Records the version of every entry a {@link Dumper} wrote into its output directory, so
+ * an incremental dump can skip entries that have not changed since the last run, and remove
+ * the output of entries that no longer exist.
+ * <p>
+ * Entries are keyed by archive or file id, and own every output named {@code <id>},
+ * {@code <id>.*} or {@code <id>/**}
+ */
+public class DumpManifest
+{
+	private static final String FILE_NAME = ".manifest";
+	private static final int FORMAT = 1;
+	// bump whenever this tool changes what it writes for an entry, so incremental dumps rewrite everything
+	private static final int OUTPUT_VERSION = 2;
+	private static final Gson GSON = new Gson();
+
+	private static class Data
+	{
+		int format;
+		String library;
+		int output;
+		Long source;
+		Map<Integer, Long> entries;
+	}
+
+	private final File directory;
+	private final Long previousSource;
+	private final Map<Integer, Long> previous;
+	private final Map<Integer, Long> current = new ConcurrentHashMap<>();
+	private volatile Long source;
+	private Map<String, List<File>> outputs;
+	// if set only these entries are treated as changed
+	private final Set<Integer> selected;
+
+	private DumpManifest(File directory, Long previousSource, Map<Integer, Long> previous)
+	{
+		this(directory, previousSource, previous, null);
+	}
+
+	private DumpManifest(File directory, Long previousSource, Map<Integer, Long> previous, Set<Integer> selected)
+	{
+		this.directory = directory;
+		this.previousSource = previousSource;
+		this.previous = previous;
+		this.selected = selected;
+	}
+
+	/**
+	 * Loads the manifest of the last dump into {@code directory}. If {@code incremental} is not
+	 * set, or the last dump was made with a different cache library or output format, every entry is
+	 * treated as changed
+	 */
+	public static DumpManifest load(File directory, boolean incremental) throws IOException
+	{
+		File file = new File(directory, FILE_NAME);
+		if (incremental && file.exists())
+		{
+			Data data;
+			try (Reader r = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))
+			{
+				data = GSON.fromJson(r, Data.class);
+			}
+
+			if (data != null && data.format == FORMAT && Objects.equals(data.library, library())
+				&& data.output == OUTPUT_VERSION && data.entries != null)
+			{
+				return new DumpManifest(directory, data.source, data.entries);
+			}
+		}
+
+		return new DumpManifest(directory, null, new HashMap<>());
+	}
+
+	/**
+	 * A manifest for output that can't be dumped incrementally. Every entry is treated as changed
+	 */
+	public static DumpManifest none()
+	{
+		return new DumpManifest(null, null, new HashMap<>());
+	}
+
+	/**
+	 * A manifest that treats only the entries in {@code ids} as changed, so a dumper only decodes
+	 * and writes those. Dumpers that don't check entries still write everything
+	 */
+	public static DumpManifest only(Set<Integer> ids)
+	{
+		return new DumpManifest(null, null, new HashMap<>(), ids);
+	}
+
+	// the jar path includes the cache library's version, which changes how definitions decode
+	private static String library()
+	{
+		return String.valueOf(Store.class.getProtectionDomain().getCodeSource().getLocation());
+	}
+
+	/**
+	 * Returns the id of the entry that owns an output path, or -1 if none does
+	 */
+	static int entryId(String path)
+	{
+		int end = 0;
+		while (end < path.length() && end < 10 && Character.isDigit(path.charAt(end)))
+		{
+			end++;
+		}
+		if (end == 0 || (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '/'))
+		{
+			return -1;
+		}
+
+		long id = Long.parseLong(path.substring(0, end));
+		return id > Integer.MAX_VALUE ? -1 : (int) id;
+	}
+
+	public static long version(Archive archive)
+	{
+		return (long) archive.getRevision() << 32 | archive.getCrc() & 0xFFFFFFFFL;
+	}
+
+	public static long version(Index index)
+	{
+		return (long) index.getRevision() << 32 | index.getCrc() & 0xFFFFFFFFL;
+	}
+
+	/**
+	 * Records the version of the archive every entry is read from. If it is unchanged all
+	 * previous entries are kept and true is returned
+	 */
+	public boolean isSourceUnchanged(long version)
+	{
+		source = version;
+		if (previousSource == null || previousSource != version)
+		{
+			return false;
+		}
+
+		current.putAll(previous);
+		return true;
+	}
+
+	/**
+	 * Whether an entry has to be looked at at all. Entries that aren't selected can be skipped
+	 * before hashing or decoding them
+	 */
+	public boolean isSelected(int id)
+	{
+		return selected == null || selected.contains(id);
+	}
+
+	/**
+	 * Records the version of an entry. If it has changed its previous output is removed and
+	 * false is returned, and the caller must write it again
+	 */
+	public boolean isUnchanged(int id, long version) throws IOException
+	{
+		if (selected != null)
+		{
+			return !selected.contains(id);
+		}
+
+		current.put(id, version);
+		Long old = previous.get(id);
+		if (old == null)
+		{
+			return false;
+		}
+		if (old == version)
+		{
+			return true;
+		}
+
+		removeOutput(id);
+		return false;
+	}
+
+	/**
+	 * Records an entry that was written whether or not it changed, replacing its previous version.
+	 * Its output is kept, and is only removed if a later run doesn't record it again
+	 */
+	public void record(int id, long version)
+	{
+		if (selected == null)
+		{
+			current.put(id, version);
+		}
+	}
+
+	/**
+	 * Removes the output of entries that were not seen in this run and writes the manifest
+	 */
+	public void save() throws IOException
+	{
+		if (directory == null)
+		{
+			return;
+		}
+
+		for (int id : previous.keySet())
+		{
+			if (!current.containsKey(id))
+			{
+				removeOutput(id);
+			}
+		}
+
+		// a dumper that wrote nothing, or only through a sink that doesn't create it, has no directory yet
+		Files.createDirectories(directory.toPath());
+
+		Data data = new Data();
+		data.format = FORMAT;
+		data.library = library();
+		data.output = OUTPUT_VERSION;
+		data.source = source;
+		data.entries = new HashMap<>(current);
+
+		try (Writer w = Files.newBufferedWriter(new File(directory, FILE_NAME).toPath(), StandardCharsets.UTF_8))
+		{
+			GSON.toJson(data, w);
+		}
+	}
+
+	/**
+	 * Removes the manifest, so the next dump into this directory is a full one. This must be
+	 * called if a dump fails partway through
+	 */
+	public void invalidate() throws IOException
+	{
+		if (directory == null)
+		{
+			return;
+		}
+
+		Files.deleteIfExists(new File(directory, FILE_NAME).toPath());
+	}
+
+	private void removeOutput(int id) throws IOException
+	{
+		List<File> files;
+		synchronized (this)
+		{
+			if (outputs == null)
+			{
+				outputs = new HashMap<>();
+				File[] list = directory.listFiles();
+				if (list != null)
+				{
+					for (File f : list)
+					{
+						String name = f.getName();
+						if (name.startsWith("."))
+						{
+							continue;
+						}
+
+						int dot = name.indexOf('.');
+						outputs.computeIfAbsent(dot == -1 ? name : name.substring(0, dot), k -> new ArrayList<>()).add(f);
+					}
+				}
+			}
+
+			files = outputs.remove(Integer.toString(id));
+		}
+
+		if (files == null)
+		{
+			return;
+		}
+
+		for (File f : files)
+		{
+			if (f.isDirectory())
+			{
+				MoreFiles.deleteRecursively(f.toPath(), RecursiveDeleteOption.ALLOW_INSECURE);
+			}
+			else
+			{
+				Files.deleteIfExists(f.toPath());
+			}
+		}
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+import net.runelite.cache.ConfigType;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.fs.Store;
+
+/**
+ * Runs dumpers using the inputs they declare. Dumpers reading the same index or config archive are
+ * started next to each other, so they share its archives in the {@link ArchiveCache}, at most
+ * {@code jobs} dumpers run at once, and an input's archives are dropped from the cache as soon as
+ * the last dumper reading it is done
+ */
+class DumpScheduler
+{
+	@FunctionalInterface
+	interface Job
+	{
+		void run(Dumper dumper) throws Exception;
+	}
+
+	// archive -1 is a whole index
+	private static final class Input
+	{
+		private final int index;
+		private final int archive;
+
+		private Input(int index, int archive)
+		{
+			this.index = index;
+			this.archive = archive;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			return o instanceof Input && ((Input) o).index == index && ((Input) o).archive == archive;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return index * 31 + archive;
+		}
+	}
+
+	private final Store store;
+	private final Map<Input, Integer> readers = new HashMap<>();
+
+	private DumpScheduler(Store store)
+	{
+		this.store = store;
+	}
+
+	/**
+	 * The indexes {@code dumpers} read, which are the only ones that have to be loaded
+	 */
+	static Set<Integer> indexes(Collection<Dumper> dumpers)
+	{
+		Set<Integer> indexes = new TreeSet<>();
+		for (Dumper d : dumpers)
+		{
+			indexes.addAll(d.getIndexes());
+			if (!d.getConfigTypes().isEmpty())
+			{
+				indexes.add(IndexType.CONFIGS.getNumber());
+			}
+		}
+		return indexes;
+	}
+
+	private static List<Input> inputs(Dumper dumper)
+	{
+		List<Input> inputs = new ArrayList<>();
+		for (int index : dumper.getIndexes())
+		{
+			inputs.add(new Input(index, -1));
+		}
+		for (ConfigType type : dumper.getConfigTypes())
+		{
+			inputs.add(new Input(IndexType.CONFIGS.getNumber(), type.getId()));
+		}
+		return inputs;
+	}
+
+	/**
+	 * Runs {@code job} for every dumper on {@code pool}, which the dumpers also fork their work
+	 * into, and returns the tasks in the order they were started
+	 */
+	static List<ForkJoinTask<Void>> run(Store store, Collection<Dumper> dumpers, int jobs, ForkJoinPool pool, Job job) throws InterruptedException
+	{
+		DumpScheduler scheduler = new DumpScheduler(store);
+
+		// dumpers that read a whole index first, then by config archive, so the ones sharing an input are adjacent
+		List<Dumper> order = new ArrayList<>(dumpers);
+		order.sort(Comparator.<Dumper>comparingInt(Dumper::getIndex)
+			.thenComparingInt(d -> d.getConfigType() == null ? -1 : d.getConfigType().getId()));
+
+		for (Dumper d : order)
+		{
+			for (Input in : inputs(d))
+			{
+				scheduler.readers.merge(in, 1, Integer::sum);
+			}
+		}
+
+		Semaphore running = new Semaphore(Math.max(jobs, 1));
+		List<ForkJoinTask<Void>> tasks = new ArrayList<>();
+		for (Dumper d : order)
+		{
+			running.acquire();
+			tasks.add(pool.submit(() ->
+			{
+				try
+				{
+					job.run(d);
+				}
+				finally
+				{
+					scheduler.done(d);
+					running.release();
+				}
+				return (Void) null;
+			}));
+		}
+		return tasks;
+	}
+
+	private void done(Dumper dumper)
+	{
+		for (Input in : inputs(dumper))
+		{
+			int left;
+			synchronized (readers)
+			{
+				left = readers.merge(in, -1, Integer::sum);
+			}
+			if (left == 0)
+			{
+				ArchiveCache.invalidate(store, in.index, in.archive);
+			}
+		}
+	}
+}
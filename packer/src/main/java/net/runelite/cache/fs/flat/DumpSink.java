@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Where a {@link Dumper} writes its output. Paths are relative and always use {@code /}
+ */
+public interface DumpSink extends Closeable
+{
+	void write(String path, byte[] data) throws IOException;
+
+	/**
+	 * Waits until everything written through this sink has been stored
+	 */
+	default void flush() throws IOException
+	{
+	}
+
+	/**
+	 * Returns a sink that writes into {@code directory} of this sink. Closing it does not close this sink
+	 */
+	default DumpSink child(String directory)
+	{
+		DumpSink parent = this;
+		return new DumpSink()
+		{
+			@Override
+			public void write(String path, byte[] data) throws IOException
+			{
+				parent.write(directory + "/" + path, data);
+			}
+
+			@Override
+			public void flush() throws IOException
+			{
+				parent.flush();
+			}
+
+			@Override
+			public void close()
+			{
+			}
+		};
+	}
+}
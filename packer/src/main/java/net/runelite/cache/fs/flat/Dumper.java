@@ -26,38 +26,47 @@ package net.runelite.cache.fs.flat;
 
 import com.google.common.hash.Hashing;
 import com.google.common.io.BaseEncoding;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import net.runelite.cache.ConfigType;
 import net.runelite.cache.IndexType;
 import net.runelite.cache.InterfaceManager;
-import net.runelite.cache.InventoryManager;
 import net.runelite.cache.OverlayManager;
-import net.runelite.cache.StructManager;
 import net.runelite.cache.TextureManager;
 import net.runelite.cache.UnderlayManager;
 import net.runelite.cache.definitions.DBTableIndex;
-import net.runelite.cache.definitions.InventoryDefinition;
 import net.runelite.cache.definitions.ModelDefinition;
 import net.runelite.cache.definitions.OverlayDefinition;
 import net.runelite.cache.definitions.ScriptDefinition;
 import net.runelite.cache.definitions.SpriteDefinition;
-import net.runelite.cache.definitions.StructDefinition;
 import net.runelite.cache.definitions.TextureDefinition;
 import net.runelite.cache.definitions.UnderlayDefinition;
-import net.runelite.cache.definitions.exporters.SpriteExporter;
 import net.runelite.cache.definitions.loaders.DBRowLoader;
 import net.runelite.cache.definitions.loaders.DBTableIndexLoader;
 import net.runelite.cache.definitions.loaders.DBTableLoader;
 import net.runelite.cache.definitions.loaders.EnumLoader;
 import net.runelite.cache.definitions.loaders.GameValLoader;
+import net.runelite.cache.definitions.loaders.InventoryLoader;
 import net.runelite.cache.definitions.loaders.ItemLoader;
 import net.runelite.cache.definitions.loaders.KitLoader;
 import net.runelite.cache.definitions.loaders.ModelLoader;
@@ -68,6 +77,7 @@ import net.runelite.cache.definitions.loaders.ScriptLoader;
 import net.runelite.cache.definitions.loaders.SequenceLoader;
 import net.runelite.cache.definitions.loaders.SpotAnimLoader;
 import net.runelite.cache.definitions.loaders.SpriteLoader;
+import net.runelite.cache.definitions.loaders.StructLoader;
 import net.runelite.cache.definitions.loaders.VarbitLoader;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.ArchiveFiles;
@@ -79,99 +89,97 @@ import net.runelite.cache.script.disassembler.Disassembler;
 
 public enum Dumper
 {
-	UNDERLAYS
+	UNDERLAYS(ConfigType.UNDERLAY)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
 				UnderlayManager um = new UnderlayManager(store);
 				um.load();
 				for (UnderlayDefinition ud : um.getUnderlays())
 				{
+					// managers decode everything, so entries are only recorded to remove the output of deleted ones
+					manifest.record(ud.getId(), 0);
 					writeFile(output, ud.getId(), ud);
 				}
 			}
 		},
-	KITS
+	KITS(ConfigType.IDENTKIT)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
-				writeConfig(store, output, ConfigType.IDENTKIT, new KitLoader()::load);
+				writeConfig(store, output, manifest, getConfigType(), new KitLoader()::load);
 			}
 		},
-	OVERLAYS
+	OVERLAYS(ConfigType.OVERLAY)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
 				OverlayManager om = new OverlayManager(store);
 				om.load();
 				for (OverlayDefinition od : om.getOverlays())
 				{
+					manifest.record(od.getId(), 0);
 					writeFile(output, od.getId(), od);
 				}
 			}
 		},
-	INVENTORIES
+	INVENTORIES(ConfigType.INV)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
-				InventoryManager im = new InventoryManager(store);
-				im.load();
-				for (InventoryDefinition id : im.getInventories())
-				{
-					writeFile(output, id.id, id);
-				}
+				writeConfig(store, output, manifest, getConfigType(), new InventoryLoader()::load);
 			}
 		},
-	OBJECT_DEFS
+	OBJECT_DEFS(ConfigType.OBJECT)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
-				writeConfig(store, output, ConfigType.OBJECT, new ObjectLoader()::load);
+				writeConfig(store, output, manifest, getConfigType(), new ObjectLoader()::load);
 			}
 		},
-	ENUMS
+	ENUMS(ConfigType.ENUM)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
-				writeConfig(store, output, ConfigType.ENUM, new EnumLoader()::load);
+				writeConfig(store, output, manifest, getConfigType(), new EnumLoader()::load);
 			}
 		},
-	NPC_DEFS
+	NPC_DEFS(ConfigType.NPC)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
-				writeConfig(store, output, ConfigType.NPC, new NpcLoader()::load);
+				writeConfig(store, output, manifest, getConfigType(), new NpcLoader()::load);
 			}
 		},
-	ITEM_DEFS
+	ITEM_DEFS(ConfigType.ITEM)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
-				writeConfig(store, output, ConfigType.ITEM, new ItemLoader()::load);
+				writeConfig(store, output, manifest, getConfigType(), new ItemLoader()::load);
 			}
 		},
-	SEQUENCES
+	SEQUENCES(ConfigType.SEQUENCE)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
-				writeConfig(store, output, ConfigType.SEQUENCE, new SequenceLoader()::load);
+				writeConfig(store, output, manifest, getConfigType(), new SequenceLoader()::load);
 			}
 		},
-	VAR_PLAYERS
+	VAR_PLAYERS(ConfigType.VARPLAYER)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
-				Dumper.writeConfig(store, output, ConfigType.VARPLAYER, (id, b) ->
+				Dumper.writeConfig(store, output, manifest, getConfigType(), (id, b) ->
 				{
 					VarPlayer varp = new VarPlayer();
 					varp.id = id;
@@ -185,83 +193,83 @@ public enum Dumper
 				});
 			}
 		},
-	VAR_BITS
+	VAR_BITS(ConfigType.VARBIT)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
-				writeConfig(store, output, ConfigType.VARBIT, new VarbitLoader()::load);
+				writeConfig(store, output, manifest, getConfigType(), new VarbitLoader()::load);
 			}
 		},
-	PARAM_DEFS
+	PARAM_DEFS(ConfigType.PARAMS)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
-				writeConfig(store, output, ConfigType.PARAMS, (id, b) -> new ParamLoader().load(b));
+				writeConfig(store, output, manifest, getConfigType(), (id, b) -> new ParamLoader().load(b));
 			}
 		},
-	INTERFACE_DEFS
+	INTERFACE_DEFS(IndexType.INTERFACES)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
 				InterfaceManager m = new InterfaceManager(store);
 				m.load();
-				m.export(output);
+				writeDirectory(output, manifest, m::export);
 			}
 		},
-	SPOTANIMS
+	SPOTANIMS(ConfigType.SPOTANIM)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
-				writeConfig(store, output, ConfigType.SPOTANIM, new SpotAnimLoader()::load);
+				writeConfig(store, output, manifest, getConfigType(), new SpotAnimLoader()::load);
 			}
 		},
 	@NotAll
-	MODELS_RAW
+	@Blobs
+	MODELS_RAW(IndexType.MODELS)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
 				Index i = store.getIndex(IndexType.MODELS);
-				for (Archive a : i.getArchives())
+				forEachArchive(i, manifest, a ->
 				{
-					byte[] cad = store.getStorage().loadArchive(a);
-					byte[] data = a.decompress(cad);
+					byte[] data = ArchiveCache.decompressUncached(store, a);
 					writeFile(output, a.getArchiveId() + ".model", data);
-				}
+				});
 			}
 		},
-	@NotAll
-	MODELS
+	MODELS(IndexType.MODELS)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
 				ModelLoader l = new ModelLoader();
 
+				// each worker holds at most one model and its encoding, and the sinks bound what
+				// is queued behind them, so memory doesn't grow with the number of models
 				Index i = store.getIndex(IndexType.MODELS);
-				for (Archive a : i.getArchives())
+				forEachArchive(i, manifest, a ->
 				{
-					byte[] cad = store.getStorage().loadArchive(a);
-					byte[] data = a.decompress(cad);
+					byte[] data = ArchiveCache.decompressUncached(store, a);
 					ModelDefinition d = l.load(a.getArchiveId(), data);
-					writeFile(output, a.getArchiveId(), d);
-				}
+					writeFile(output, a.getArchiveId() + ".json", MODEL_JSON.encode(d));
+				});
 			}
 		},
-	SPRITES
+	SPRITES(IndexType.SPRITES)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
 				SpriteLoader loader = new SpriteLoader();
 
-				for (Archive a : store.getIndex(IndexType.SPRITES).getArchives())
+				forEachArchive(store.getIndex(IndexType.SPRITES), manifest, a ->
 				{
-					byte[] contents = a.decompress(store.getStorage().loadArchive(a));
+					byte[] contents = ArchiveCache.decompress(store, a);
 
 					List<SpriteDefinition> defs = Arrays.stream(loader.load(a.getArchiveId(), contents))
 						.filter(s -> s.getHeight() > 0 && s.getWidth() > 0)
@@ -272,53 +280,89 @@ public enum Dumper
 					}
 					else if (defs.size() == 1)
 					{
-						new SpriteExporter(defs.get(0)).exportTo(new File(output, id + ".png"));
+						writeSprite(output, id + ".png", defs.get(0));
 					}
 					else
 					{
-						File f = new File(output, "" + id);
-						f.mkdirs();
-						for (SpriteDefinition sprite : defs)
+						forEach(defs, sprite ->
 						{
 							if (sprite.getHeight() <= 0 || sprite.getWidth() <= 0)
 							{
-								continue;
+								return;
 							}
 
-							new SpriteExporter(sprite).exportTo(new File(f, sprite.getFrame() + ".png"));
-						}
+							writeSprite(output, id + "/" + sprite.getFrame() + ".png", sprite);
+						});
 					}
+				});
+			}
+		},
+	@NotAll
+	SPRITE_ATLAS(IndexType.SPRITES)
+		{
+			@Override
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
+			{
+				Index i = store.getIndex(IndexType.SPRITES);
+				long version = DumpManifest.version(i);
+				if (manifest.isSourceUnchanged(version))
+				{
+					return;
 				}
+
+				SpriteLoader loader = new SpriteLoader();
+				Queue<SpriteDefinition> sprites = new ConcurrentLinkedQueue<>();
+				forEach(i.getArchives(), a ->
+				{
+					for (SpriteDefinition s : loader.load(a.getArchiveId(), ArchiveCache.decompress(store, a)))
+					{
+						if (s.getHeight() > 0 && s.getWidth() > 0)
+						{
+							sprites.add(s);
+						}
+					}
+				});
+
+				SpriteAtlas atlas = SpriteAtlas.pack(sprites, ATLAS_SIZE);
+				forEach(atlas.getPages(), p ->
+				{
+					// pages are renumbered whenever anything changes, so they are always rewritten
+					manifest.record(p.getId(), version);
+					writeFile(output, p.getId() + ".png", PNG.encode(p.render(), p.getWidth(), p.getHeight()));
+				});
+				writeFile(output, "index.json", atlas.getEntries());
 			}
 		},
-	TEXTURE_DEFS
+	@FileEntries
+	TEXTURE_DEFS(IndexType.TEXTURES)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
 				TextureManager tm = new TextureManager(store);
 				tm.load();
 
 				for (TextureDefinition td : tm.getTextures())
 				{
+					manifest.record(td.getId(), 0);
 					writeFile(output, td.getId(), td);
 				}
 			}
 		},
-	RS2ASM
+	@Blobs
+	RS2ASM(IndexType.CLIENTSCRIPT)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
 				Index i = store.getIndex(IndexType.CLIENTSCRIPT);
 				ScriptLoader sl = new ScriptLoader()
 					.configureForRevision(i.getRevision());
 				Disassembler ds = new Disassembler();
 
-				for (Archive a : i.getArchives())
+				forEachArchive(i, manifest, a ->
 				{
-					byte[] cab = store.getStorage().loadArchive(a);
-					byte[] data = a.decompress(cab);
+					byte[] data = ArchiveCache.decompress(store, a);
 
 					String shasum = BaseEncoding.base16().encode(Hashing.sha256().hashBytes(data).asBytes());
 					writeFile(output, a.getArchiveId() + ".hash", shasum.getBytes());
@@ -335,181 +379,284 @@ public enum Dumper
 					}
 
 					writeFile(output, a.getArchiveId() + ".rs2asm", disasm.getBytes());
-				}
+				});
 			}
 		},
-	STRUCTS
+	STRUCTS(ConfigType.STRUCT)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
-				StructManager sm = new StructManager(store);
-				sm.load();
-
-				for (Map.Entry<Integer, StructDefinition> sd : sm.getStructs().entrySet())
-				{
-					writeFile(output, sd.getKey(), sd.getValue());
-				}
+				writeConfig(store, output, manifest, getConfigType(), new StructLoader()::load);
 			}
 		},
-	BINARY
+	@Blobs
+	BINARY(IndexType.BINARY)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
-				for (Archive a : store.getIndex(IndexType.BINARY).getArchives())
-				{
-					byte[] cab = store.getStorage().loadArchive(a);
-					ArchiveFiles af = a.getFiles(cab);
-					if (af.getFiles().size() == 1)
-					{
-						writeFile(output, "" + a.getArchiveId(), af.getFiles().iterator().next().getContents());
-					}
-					else
-					{
-						for (FSFile fsf : af.getFiles())
-						{
-							writeFile(output, a.getArchiveId() + "/" + fsf.getFileId(), fsf.getContents());
-						}
-					}
-				}
+				writeFiles(store, store.getIndex(IndexType.BINARY), output, manifest);
 			}
 		},
 	@NotAll
-	_18
+	@Blobs
+	_18(18)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
-				for (Archive a : store.findIndex(18).getArchives())
-				{
-					byte[] cab = store.getStorage().loadArchive(a);
-					ArchiveFiles af = a.getFiles(cab);
-					if (af.getFiles().size() == 1)
-					{
-						writeFile(output, "" + a.getArchiveId(), af.getFiles().iterator().next().getContents());
-					}
-					else
-					{
-						for (FSFile fsf : af.getFiles())
-						{
-							writeFile(output, a.getArchiveId() + "/" + fsf.getFileId(), fsf.getContents());
-						}
-					}
-				}
+				writeFiles(store, store.findIndex(18), output, manifest);
 			}
 		},
 	@NotAll
-	_19
+	@Blobs
+	_19(19)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
-				for (Archive a : store.findIndex(19).getArchives())
-				{
-					byte[] cab = store.getStorage().loadArchive(a);
-					ArchiveFiles af = a.getFiles(cab);
-					if (af.getFiles().size() == 1)
-					{
-						writeFile(output, "" + a.getArchiveId(), af.getFiles().iterator().next().getContents());
-					}
-					else
-					{
-						for (FSFile fsf : af.getFiles())
-						{
-							writeFile(output, a.getArchiveId() + "/" + fsf.getFileId(), fsf.getContents());
-						}
-					}
-				}
+				writeFiles(store, store.findIndex(19), output, manifest);
 			}
 		},
 	@NotAll
-	_20
+	@Blobs
+	_20(20)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
-				for (Archive a : store.findIndex(20).getArchives())
+				forEachArchive(store.findIndex(20), manifest, a ->
 				{
-					byte[] cab = store.getStorage().loadArchive(a);
-					byte[] data = a.decompress(cab);
+					byte[] data = ArchiveCache.decompress(store, a);
 
 					writeFile(output, a.getArchiveId() + ".png", data);
-				}
+				});
 			}
 		},
-	DBTABLE
+	DBTABLE(ConfigType.DBTABLE)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
-				writeConfig(store, output, ConfigType.DBTABLE, new DBTableLoader()::load);
+				writeConfig(store, output, manifest, getConfigType(), new DBTableLoader()::load);
 			}
 		},
-	DBROW
+	DBROW(ConfigType.DBROW)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
-				writeConfig(store, output, ConfigType.DBROW, new DBRowLoader()::load);
+				writeConfig(store, output, manifest, getConfigType(), new DBRowLoader()::load);
 			}
 		},
-	DBTABLE_INDEX
+	DBTABLE_INDEX(IndexType.DBTABLEINDEX)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
 				DBTableIndexLoader loader = new DBTableIndexLoader();
 
 				Index index = store.getIndex(IndexType.DBTABLEINDEX);
-				for (Archive ar : index.getArchives())
+				forEachArchive(index, manifest, ar ->
 				{
-					File dir = new File(output, ar.getArchiveId() + "");
-					dir.mkdir();
-					for (FSFile f : ar.getFiles(store.getStorage().loadArchive(ar)).getFiles())
+					forEach(ArchiveCache.getFiles(store, ar).getFiles(), f ->
 					{
 						DBTableIndex row = loader.load(ar.getArchiveId(), f.getFileId() - 1, f.getContents());
-						writeFile(dir, f.getFileId() == 0 ? "master.json" : (f.getFileId() - 1) + ".json", row);
-					}
-				}
+						writeFile(output, ar.getArchiveId() + "/" + (f.getFileId() == 0 ? "master.json" : (f.getFileId() - 1) + ".json"), row);
+					});
+				});
 			}
 		},
-	GAMEVALS
+	GAMEVALS(IndexType.GAMEVALS)
 		{
 			@Override
-			public void dump(Store store, File output) throws Exception
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
 			{
 				GameValLoader loader = new GameValLoader();
-				for (Archive a : store.getIndex(IndexType.GAMEVALS).getArchives())
+				forEachArchive(store.getIndex(IndexType.GAMEVALS), manifest, a ->
 				{
-					byte[] cab = store.getStorage().loadArchive(a);
-					ArchiveFiles af = a.getFiles(cab);
-					for (FSFile fsf : af.getFiles())
-					{
-						writeFile(output, a.getArchiveId() + "/" + fsf.getFileId(), loader.load(a.getArchiveId(), fsf.getFileId(), fsf.getContents()));
-					}
+					ArchiveFiles af = ArchiveCache.getFiles(store, a);
+					forEach(af.getFiles(), fsf ->
+						writeFile(output, a.getArchiveId() + "/" + fsf.getFileId(), loader.load(a.getArchiveId(), fsf.getFileId(), fsf.getContents())));
+				});
+			}
+		},
+	@NotAll
+	XREFS(new IndexType[]{IndexType.CLIENTSCRIPT}, ConfigType.PARAMS, ConfigType.ENUM, ConfigType.STRUCT,
+		ConfigType.ITEM, ConfigType.NPC, ConfigType.OBJECT, ConfigType.DBROW)
+		{
+			@Override
+			public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception
+			{
+				CrossReferences refs = CrossReferences.build(store);
+				for (CrossReferences.Target target : CrossReferences.Target.values())
+				{
+					String dir = target.name().toLowerCase() + "/";
+					forEach(refs.get(target).entrySet(), e ->
+						writeFile(output, dir + e.getKey() + ".json", COMPACT_JSON.encode(new TreeMap<>(e.getValue()))));
 				}
 			}
 		}
 	;
 
+	private final int index;
+	private final ConfigType configType;
+	private final Set<Integer> indexes;
+	private final Set<ConfigType> configTypes;
+
+	Dumper(int index)
+	{
+		this.index = index;
+		this.configType = null;
+		this.indexes = Collections.singleton(index);
+		this.configTypes = Collections.emptySet();
+	}
+
+	Dumper(IndexType index)
+	{
+		this(index.getNumber());
+	}
+
+	Dumper(ConfigType configType)
+	{
+		this.index = IndexType.CONFIGS.getNumber();
+		this.configType = configType;
+		this.indexes = Collections.emptySet();
+		this.configTypes = Collections.singleton(configType);
+	}
+
+	// for dumpers combining several inputs, which have no single config archive
+	Dumper(IndexType[] indexes, ConfigType... configTypes)
+	{
+		this.index = configTypes.length > 0 ? IndexType.CONFIGS.getNumber() : indexes[0].getNumber();
+		this.configType = null;
+		this.indexes = Collections.unmodifiableSet(Stream.of(indexes).map(IndexType::getNumber).collect(Collectors.toSet()));
+		EnumSet<ConfigType> types = EnumSet.noneOf(ConfigType.class);
+		Collections.addAll(types, configTypes);
+		this.configTypes = Collections.unmodifiableSet(types);
+	}
+
+	/**
+	 * The index this dumper reads from
+	 */
+	public int getIndex()
+	{
+		return index;
+	}
+
+	/**
+	 * The config archive this dumper reads from, or null if it reads a whole index
+	 */
+	public ConfigType getConfigType()
+	{
+		return configType;
+	}
+
+	/**
+	 * Every index this dumper reads whole
+	 */
+	public Set<Integer> getIndexes()
+	{
+		return indexes;
+	}
+
+	/**
+	 * Every config archive this dumper reads
+	 */
+	public Set<ConfigType> getConfigTypes()
+	{
+		return configTypes;
+	}
+
 	private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+	private static final JsonEncoder JSON = new JsonEncoder(GSON);
+	private static final JsonEncoder COMPACT_JSON = new JsonEncoder(new Gson());
+	// models are mostly vertex and face arrays, which are unreadable one element per line
+	private static final JsonEncoder MODEL_JSON = new JsonEncoder(new GsonBuilder()
+		.setPrettyPrinting()
+		.registerTypeAdapterFactory(new InlineArrayAdapterFactory("  "))
+		.create());
+	private static final int ATLAS_SIZE = 2048;
+	private static final PngEncoder PNG = new PngEncoder(Integer.getInteger("flatcache.png.level", 6));
+
+	private static void writeFile(DumpSink out, String name, byte[] data) throws IOException
+	{
+		out.write(name, data);
+		Metrics.fileWritten(data.length);
+	}
+
+	private static void writeFile(DumpSink out, int name, Object data) throws IOException
+	{
+		writeFile(out, name + ".json", JSON.encode(data));
+	}
+
+	private static void writeFile(DumpSink out, String name, Object data) throws IOException
+	{
+		writeFile(out, name, JSON.encode(data));
+	}
+
+	private static void writeSprite(DumpSink out, String name, SpriteDefinition sprite) throws IOException
+	{
+		writeFile(out, name, PNG.encode(sprite.getPixels(), sprite.getWidth(), sprite.getHeight()));
+	}
 
-	private static void writeFile(File dir, String name, byte[] data) throws IOException
+	@FunctionalInterface
+	private interface DirectoryExporter
 	{
-		File fi = new File(dir, name);
-		fi.getParentFile().mkdirs();
-		Files.write(fi.toPath(), data);
+		void export(File directory) throws IOException;
 	}
 
-	private static void writeFile(File dir, int name, Object data) throws IOException
+	// for cache library code that can only export into a directory
+	// records the entry of every file the exporter wrote, so the outputs of removed entries get deleted
+	private static void writeDirectory(DumpSink out, DumpManifest manifest, DirectoryExporter exporter) throws IOException
 	{
-		writeFile(dir, name + ".json", GSON.toJson(data).getBytes());
+		if (out instanceof DirectorySink)
+		{
+			File dir = ((DirectorySink) out).getDirectory();
+			long start = System.currentTimeMillis() - 1000;
+			exporter.export(dir);
+			// the exporter writes on its own, so count what it left behind, skipping files from older dumps
+			try (Stream<Path> files = Files.walk(dir.toPath()))
+			{
+				for (Path p : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator)
+				{
+					if (Files.getLastModifiedTime(p).toMillis() >= start)
+					{
+						Metrics.fileWritten(Files.size(p));
+						recordEntry(manifest, dir.toPath().relativize(p));
+					}
+				}
+			}
+			return;
+		}
+
+		Path tmp = Files.createTempDirectory("flatcache");
+		try
+		{
+			exporter.export(tmp.toFile());
+			try (Stream<Path> files = Files.walk(tmp))
+			{
+				for (Path p : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator)
+				{
+					writeFile(out, tmp.relativize(p).toString().replace(File.separatorChar, '/'), Files.readAllBytes(p));
+					recordEntry(manifest, tmp.relativize(p));
+				}
+			}
+		}
+		finally
+		{
+			MoreFiles.deleteRecursively(tmp, RecursiveDeleteOption.ALLOW_INSECURE);
+		}
 	}
 
-	private static void writeFile(File dir, String name, Object data) throws IOException
+	private static void recordEntry(DumpManifest manifest, Path relative)
 	{
-		writeFile(dir, name, GSON.toJson(data).getBytes());
+		int id = DumpManifest.entryId(relative.toString().replace(File.separatorChar, '/'));
+		if (id != -1)
+		{
+			manifest.record(id, 0);
+		}
 	}
 
 	@FunctionalInterface
@@ -518,22 +665,119 @@ public enum Dumper
 		D load(int id, byte[] data);
 	}
 
-	public static <D> void writeConfig(Store store, File output, ConfigType config, LoadFunction<D> load) throws IOException
+	public static <D> void writeConfig(Store store, DumpSink output, DumpManifest manifest, ConfigType config, LoadFunction<D> load) throws IOException
 	{
 		Index i = store.getIndex(IndexType.CONFIGS);
 		Archive a = i.getArchive(config.getId());
-		byte[] cad = store.getStorage().loadArchive(a);
-		ArchiveFiles fs = a.getFiles(cad);
+		if (manifest.isSourceUnchanged(DumpManifest.version(a)))
+		{
+			return;
+		}
+
+		ArchiveFiles fs = ArchiveCache.getFiles(store, a);
 
-		for (FSFile f : fs.getFiles())
+		if (output instanceof NdjsonSink)
 		{
+			// the file is written once everything is decoded, so it can be sorted
+			SortedMap<Integer, byte[]> records = new ConcurrentSkipListMap<>();
+			forEach(fs.getFiles(), f ->
+			{
+				D d = load.load(f.getFileId(), f.getContents());
+				if (d != null)
+				{
+					records.put(f.getFileId(), COMPACT_JSON.encode(d));
+				}
+			});
+			((NdjsonSink) output).writeRecords(records);
+			return;
+		}
+
+		List<FSFile> files = fs.getFiles().stream()
+			.filter(f -> manifest.isSelected(f.getFileId()))
+			.collect(Collectors.toList());
+		forEach(files, f ->
+		{
+			if (manifest.isUnchanged(f.getFileId(), Hashing.murmur3_128().hashBytes(f.getContents()).asLong()))
+			{
+				return;
+			}
+
 			D d = load.load(f.getFileId(), f.getContents());
 			if (d != null)
 			{
 				writeFile(output, f.getFileId(), d);
 			}
-		}
+		});
+	}
+
+	private static void writeFiles(Store store, Index index, DumpSink output, DumpManifest manifest)
+	{
+		forEachArchive(index, manifest, a ->
+		{
+			ArchiveFiles af = ArchiveCache.getFiles(store, a);
+			if (af.getFiles().size() == 1)
+			{
+				writeFile(output, "" + a.getArchiveId(), af.getFiles().iterator().next().getContents());
+			}
+			else
+			{
+				for (FSFile fsf : af.getFiles())
+				{
+					writeFile(output, a.getArchiveId() + "/" + fsf.getFileId(), fsf.getContents());
+				}
+			}
+		});
 	}
 
-	abstract public void dump(Store store, File output) throws Exception;
+	@FunctionalInterface
+	interface Task<T>
+	{
+		void run(T value) throws Exception;
+	}
+
+	// when called from a ForkJoinPool worker the tasks are forked into that pool, so idle
+	// workers can steal them from whichever dumper is still running
+	static <T> void forEach(Collection<T> values, Task<T> task)
+	{
+		Metrics.Stage stage = Metrics.current();
+		List<ForkJoinTask<Void>> tasks = values.stream()
+			.map(v -> ForkJoinTask.adapt(() ->
+			{
+				Metrics.Stage prev = Metrics.enter(stage);
+				try
+				{
+					task.run(v);
+				}
+				finally
+				{
+					Metrics.exit(prev);
+				}
+				return (Void) null;
+			}))
+			.collect(Collectors.toList());
+
+		ForkJoinTask.invokeAll(tasks);
+	}
+
+	// skips archives the manifest already has output for
+	private static void forEachArchive(Index index, DumpManifest manifest, Task<Archive> task)
+	{
+		List<Archive> archives = index.getArchives().stream()
+			.filter(a -> manifest.isSelected(a.getArchiveId()))
+			.collect(Collectors.toList());
+		forEach(archives, a ->
+		{
+			if (!manifest.isUnchanged(a.getArchiveId(), DumpManifest.version(a)))
+			{
+				task.run(a);
+			}
+		});
+	}
+
+	abstract public void dump(Store store, DumpSink output, DumpManifest manifest) throws Exception;
+
+	public void dump(Store store, DumpSink output) throws Exception
+	{
+		dump(store, output, DumpManifest.none());
+	}
 }
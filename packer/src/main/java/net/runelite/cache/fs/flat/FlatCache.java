@@ -24,16 +24,38 @@
  */
 package net.runelite.cache.fs.flat;
 
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.Futures;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Modifier;
+import java.io.InputStreamReader;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.Callable;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.CRC32;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Storage;
@@ -48,46 +70,140 @@ public class FlatCache
 
 	private static void printUsage()
 	{
-		System.err.println("pack [jagex cache directory] [flat cache directory]");
-		System.err.println("unpack [flat cache directory] [jagex cache directory]");
-		System.err.println("dump [type[,type]] [flat cache directory] [output directory or 7z]");
+		System.err.println("pack [--mmap] [--lazy] [--binary] [--report=<file>] [--progress] [cache directory] [flat cache directory]");
+		System.err.println("pack --history [--mmap] [--lazy] [--report=<file>] [--progress] [cache directory...] [history directory]");
+		System.err.println("unpack [--lazy] [--report=<file>] [--progress] [flat cache directory] [jagex cache directory]");
+		System.err.println("dump [--incremental] [--mmap] [--lazy] [--atlas] [--dedup[=<blob directory>]] [--ndjson[=gz]] [--io-threads=<n>] [--fsync] [--jobs=<n>] [--report=<file>] [--progress] [type[,type]] [flat cache directory...] [output directory, .zip or .tar.gz]");
+		System.err.println("diff [--ids-only] [--mmap] [--lazy] [old cache directory] [new cache directory] [output file, or stdout]");
+		System.err.println("verify [--mmap] [--lazy] [--report=<file>] [--progress] [cache directory] [output file, or stdout], exiting with 2 if anything is corrupt");
+		System.err.println("serve [--mmap] [--lazy] [cache directory] [port]");
+		System.err.println("query [--mmap] [--lazy] [cache directory] [query...], reading queries from stdin if none are given");
+		System.err.println("  queries are item, npc, object or dbrow, then ?filter&filter with name=<name>, name~<text>, param=<id>[:<value>], table=<id>, column=<id>:<value>");
+		System.err.println("--mmap reads jagex caches through memory mapped files");
+		System.err.println("--lazy only decodes flat cache archives when they are used, keeping an offset index next to each .flatcache");
+		System.err.println("--binary packs into a single binary file instead of text .flatcache files");
+		System.err.println("--history adds each cache to a delta encoded history as a revision named after its directory, storing archives shared with other revisions once."
+			+ " <history directory>/<revision> can be used anywhere a cache directory can");
+		System.err.println("  dumping several caches writes each into <output directory>/<cache directory name>");
+		System.err.println("--atlas dumps sprites as sprite_atlas, packed into a few large pages with an index.json, instead of one png per frame");
+		System.err.println("--dedup stores the output of " + Stream.of(Dumper.values()).filter(d -> isAnnotated(d, Blobs.class)).map(Enum::name).map(String::toLowerCase).collect(Collectors.joining(", "))
+			+ " once per distinct content, hard linked from a blob directory shared by every dump made with it, .blobs in the output by default");
+		System.err.println("--ndjson writes the definitions of each config type as one sorted <type>.ndjson, gzipped with =gz, indexed by id in <type>.ndjson.idx");
+		System.err.println("--io-threads=<n> writes dump output on n threads, 4 by default, or on the decoding threads with 0");
+		System.err.println("--fsync forces dump output to disk once the dump is finished");
+		System.err.println("--jobs=<n> runs at most n dumpers at once, 4 by default, only loading the indexes they read");
+		System.err.println("--ids-only makes diff only list changed ids, without decoding the changed definitions");
+		System.err.println("--report=<file> writes per stage timings and counters as json when the command finishes");
+		System.err.println("--progress prints the progress of running stages every 10 seconds");
+		System.err.println("-Dflatcache.png.level=<0-9> sets the deflate level of dumped sprites, 6 by default");
 		System.err.println("dump types: all," + Stream.of(Dumper.values()).map(Enum::name).map(String::toLowerCase).collect(Collectors.joining(", ")));
 		System.exit(1);
 	}
 
+	// flags that take a value are matched up to their =
+	private static final Set<String> FLAGS = ImmutableSet.of(
+		"--mmap", "--lazy", "--binary", "--history", "--incremental", "--atlas", "--dedup", "--ndjson",
+		"--io-threads", "--fsync", "--jobs", "--ids-only", "--report", "--progress");
+
 	public static void main(String[] args) throws Exception
 	{
+		Set<String> flags = Stream.of(args).filter(a -> a.startsWith("--")).collect(Collectors.toSet());
+		args = Stream.of(args).filter(a -> !a.startsWith("--")).toArray(String[]::new);
+
+		for (String flag : flags)
+		{
+			int eq = flag.indexOf('=');
+			if (!FLAGS.contains(eq == -1 ? flag : flag.substring(0, eq)))
+			{
+				System.err.println("Unknown flag \"" + flag + "\"");
+				printUsage();
+			}
+		}
+
 		if (args.length < 1)
 		{
 			printUsage();
 		}
 
+		LoadOption[] loadOptions = Stream.of(LoadOption.values())
+			.filter(o -> flags.contains("--" + o.name().toLowerCase()))
+			.toArray(LoadOption[]::new);
+
+		Metrics metrics = new Metrics(args[0]);
+		String report = flags.stream()
+			.filter(f -> f.startsWith("--report="))
+			.map(f -> f.substring("--report=".length()))
+			.findFirst()
+			.orElse(null);
+		ScheduledExecutorService progress = flags.contains("--progress") ? metrics.printProgress(10) : null;
+		int status;
+		try
+		{
+			status = run(args, flags, loadOptions, metrics);
+		}
+		finally
+		{
+			if (progress != null)
+			{
+				progress.shutdownNow();
+			}
+			if (report != null)
+			{
+				metrics.writeReport(new File(report));
+			}
+		}
+
+		if (status != 0)
+		{
+			System.exit(status);
+		}
+	}
+
+	private static int run(String[] args, Set<String> flags, LoadOption[] loadOptions, Metrics metrics) throws Exception
+	{
 		switch (args[0])
 		{
 			case "help":
 				printUsage();
-				return;
+				return 0;
 			case "pack":
 			{
+				if (flags.contains("--history"))
+				{
+					if (args.length < 3)
+					{
+						break;
+					}
+
+					File history = new File(args[args.length - 1]);
+					for (int i = 1; i < args.length - 1; i++)
+					{
+						packRevision(metrics, new File(args[i]), history, loadOptions);
+					}
+					return 0;
+				}
+
 				if (args.length != 3)
 				{
 					break;
 				}
 
-				try (Store store = new Store(new File(args[1])))
+				try (Store store = loadStore(metrics, new File(args[1]), loadOptions))
 				{
-					store.load();
-
 					File od = new File(args[2]);
 					od.mkdirs();
 
-					FlatStorage fs = new FlatStorage(od);
+					Storage fs = flags.contains("--binary") ? new BinaryFlatStorage(od) : new FlatStorage(od);
 					try (Store fss = new Store(fs))
 					{
-						copyStore(fss, store);
+						metrics.stage("pack").run(() ->
+						{
+							copyStore(fss, store);
+							return null;
+						});
 					}
 				}
-				return;
+				return 0;
 			}
 			case "unpack":
 			{
@@ -96,26 +212,27 @@ public class FlatCache
 					break;
 				}
 
-				FlatStorage fs = new FlatStorage(new File(args[1]));
-				try (Store store = new Store(fs))
+				try (Store store = loadStore(metrics, new File(args[1]), loadOptions))
 				{
-					store.load();
-
 					File od = new File(args[2]);
 					od.mkdirs();
 
 					DiskStorage ds = new DiskStorage(od);
 					try (Store fss = new Store(ds))
 					{
-						copyStore(fss, store);
+						metrics.stage("unpack").run(() ->
+						{
+							copyStore(fss, store);
+							return null;
+						});
 					}
 				}
 
-				return;
+				return 0;
 			}
 			case "dump":
 			{
-				if (args.length != 4)
+				if (args.length < 4)
 				{
 					break;
 				}
@@ -124,20 +241,8 @@ public class FlatCache
 				List<Dumper> dumpers = new ArrayList<>();
 				if (names.contains("ALL"))
 				{
-					dumpers = Stream.of(Dumper.class.getDeclaredFields())
-						.filter(i -> Modifier.isStatic(i.getModifiers()) && !i.isSynthetic() && Modifier.isPublic(i.getModifiers()))
-						.filter(i -> i.getAnnotationsByType(NotAll.class).length == 0)
-						.map(i ->
-						{
-							try
-							{
-								return (Dumper) i.get(null);
-							}
-							catch (ReflectiveOperationException e)
-							{
-								throw new RuntimeException(e);
-							}
-						})
+					dumpers = Stream.of(Dumper.values())
+						.filter(d -> !isAnnotated(d, NotAll.class))
 						.collect(Collectors.toList());
 				}
 				dumpers.addAll(names.stream()
@@ -145,88 +250,498 @@ public class FlatCache
 					.map(Dumper::valueOf)
 					.collect(Collectors.toList()));
 
-				try (Store store = loadStore(new File(args[2])))
+				if (flags.contains("--atlas"))
 				{
-					File outdir = new File(args[3]);
-					ExecutorService tp = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+					dumpers.replaceAll(d -> d == Dumper.SPRITES ? Dumper.SPRITE_ATLAS : d);
+				}
 
-					tp.invokeAll(dumpers.stream().map(d -> (Callable<Void>) () ->
+				List<File> caches = Stream.of(args).skip(2).limit(args.length - 3).map(File::new).collect(Collectors.toList());
+				File out = new File(args[args.length - 1]);
+				if (caches.size() == 1)
+				{
+					dump(metrics, flags, loadOptions, dumpers, caches.get(0), out);
+				}
+				else
+				{
+					// several snapshots in one run, each into a directory named after its cache
+					for (File cache : caches)
 					{
-						File f = new File(outdir, d.name().toLowerCase());
-						f.mkdirs();
-						d.dump(store, f);
-						return null;
-					})
-						.collect(Collectors.toList())).forEach(i ->
+						dump(metrics, flags, loadOptions, dumpers, cache, new File(out, cache.getName()));
+						ArchiveCache.invalidateAll();
+					}
+				}
+
+				if (flags.contains("--progress"))
+				{
+					CacheStats stats = ArchiveCache.stats();
+					System.err.println("archive cache: " + stats.hitCount() + " hits, " + stats.missCount() + " misses, " + stats.evictionCount() + " evictions");
+				}
+
+				return 0;
+			}
+			case "diff":
+			{
+				if (args.length != 3 && args.length != 4)
+				{
+					break;
+				}
+
+				JsonObject diff;
+				try (Store a = loadStore(metrics, new File(args[1]), loadOptions);
+					Store b = loadStore(metrics, new File(args[2]), loadOptions))
+				{
+					diff = metrics.stage("diff").run(() -> CacheDiff.diff(a, b, !flags.contains("--ids-only")));
+				}
+
+				byte[] json = new GsonBuilder().setPrettyPrinting().create().toJson(diff).getBytes(StandardCharsets.UTF_8);
+				if (args.length == 4)
+				{
+					Files.write(new File(args[3]).toPath(), json);
+				}
+				else
+				{
+					System.out.write(json);
+					System.out.println();
+				}
+				return 0;
+			}
+			case "serve":
+			{
+				if (args.length != 3)
+				{
+					break;
+				}
+
+				try (Store store = loadStore(metrics, new File(args[1]), loadOptions))
+				{
+					DefinitionServer server = new DefinitionServer(store, Integer.parseInt(args[2]), Runtime.getRuntime().availableProcessors() * 2);
+					CountDownLatch stopped = new CountDownLatch(1);
+					Runtime.getRuntime().addShutdownHook(new Thread(() ->
 					{
-						try
-						{
-							i.get();
-						}
-						catch (Exception e)
+						server.stop();
+						stopped.countDown();
+					}));
+					server.start();
+					System.err.println("serving " + args[1] + " on http://localhost:" + server.getPort() + "/");
+					stopped.await();
+				}
+				return 0;
+			}
+			case "query":
+			{
+				if (args.length < 2)
+				{
+					break;
+				}
+
+				DefinitionIndex index;
+				try (Store store = loadStore(metrics, new File(args[1]), loadOptions))
+				{
+					index = metrics.stage("index").run(() -> DefinitionIndex.load(store));
+				}
+
+				List<String> queries = Arrays.asList(args).subList(2, args.length);
+				if (queries.isEmpty())
+				{
+					// one query per line, so tools can keep the index loaded between queries
+					BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+					for (String line; (line = in.readLine()) != null; )
+					{
+						if (!line.trim().isEmpty())
 						{
-							e.printStackTrace();
+							System.out.println(runQuery(index, line.trim()));
+							System.out.flush();
 						}
-					});
+					}
+				}
+				else
+				{
+					for (String q : queries)
+					{
+						System.out.println(runQuery(index, q));
+					}
+				}
+				return 0;
+			}
+			case "verify":
+			{
+				if (args.length != 2 && args.length != 3)
+				{
+					break;
+				}
+
+				JsonObject report;
+				try (Store store = loadStore(metrics, new File(args[1]), loadOptions))
+				{
+					report = metrics.stage("verify").run(() -> CacheVerifier.verify(store));
+				}
 
-					tp.shutdown();
+				byte[] json = new GsonBuilder().setPrettyPrinting().create().toJson(report).getBytes(StandardCharsets.UTF_8);
+				if (args.length == 3)
+				{
+					Files.write(new File(args[2]).toPath(), json);
+				}
+				else
+				{
+					System.out.write(json);
+					System.out.println();
 				}
 
-				return;
+				int corrupt = report.get("corrupt").getAsInt();
+				System.err.println(report.get("verified").getAsInt() + " of " + report.get("archives").getAsInt() + " archives verified, "
+					+ report.get("encrypted").getAsInt() + " encrypted, " + corrupt + " corrupt or missing");
+				return corrupt == 0 ? 0 : 2;
 			}
 			default:
 				System.err.println("Unknown option \"" + args[0] + "\"");
 				printUsage();
-				return;
+				return 0;
 		}
 		printUsage();
+		return 1;
+	}
+
+	private static void packRevision(Metrics metrics, File cache, File history, LoadOption[] loadOptions) throws Exception
+	{
+		File revision = new File(history, cache.getName());
+		if (new File(revision, HistoryStorage.FILE_NAME).exists())
+		{
+			System.err.println(cache.getName() + " is already in the history");
+			return;
+		}
+		revision.mkdirs();
+
+		try (Store store = loadStore(metrics, cache, loadOptions);
+			Store hs = new Store(new HistoryStorage(revision, true)))
+		{
+			metrics.stage("pack").run(() ->
+			{
+				copyStore(hs, store);
+				return null;
+			});
+		}
 	}
 
-	private static void copyStore(Store dst, Store src) throws IOException
+	private static void dump(Metrics metrics, Set<String> flags, LoadOption[] loadOptions, List<Dumper> dumpers, File cache, File out) throws Exception
 	{
-		for (Index srcIdx : src.getIndexes())
+		boolean incremental = flags.contains("--incremental");
+
+		try (Store store = loadStore(metrics, cache, DumpScheduler.indexes(dumpers), loadOptions);
+			DumpSink sink = openSink(out, flags))
 		{
-			Index dstIdx = dst.addIndex(srcIdx.getId());
-			dstIdx.setCompression(srcIdx.getCompression());
-			dstIdx.setCrc(srcIdx.getCrc());
-			dstIdx.setRevision(srcIdx.getRevision());
-			dstIdx.setNamed(srcIdx.isNamed());
-			dstIdx.setProtocol(srcIdx.getProtocol());
-			for (Archive srcArc : srcIdx.getArchives())
+			if (incremental && !(sink instanceof DirectorySink))
+			{
+				throw new IOException("incremental dumps need an output directory");
+			}
+
+			String ndjson = flags.stream()
+				.filter(f -> f.equals("--ndjson") || f.startsWith("--ndjson="))
+				.map(f -> f.substring("--ndjson".length()))
+				.findFirst()
+				.orElse(null);
+			if (ndjson != null && incremental)
+			{
+				throw new IOException("ndjson dumps can't be incremental");
+			}
+			if (ndjson != null && !ndjson.isEmpty() && !ndjson.equals("=gz"))
 			{
-				Archive dstArc = dstIdx.addArchive(srcArc.getArchiveId());
+				throw new IOException("unknown ndjson compression \"" + ndjson.substring(1) + "\"");
+			}
+			DumpSink recordSink = ndjson == null ? sink : new NdjsonSink(sink, !ndjson.isEmpty());
 
-				dstArc.setCompression(srcArc.getCompression());
-				dstArc.setCrc(srcArc.getCrc());
-				dstArc.setFileData(srcArc.getFileData());
-				dstArc.setNameHash(srcArc.getNameHash());
-				dstArc.setRevision(srcArc.getRevision());
+			String dedup = flags.stream()
+				.filter(f -> f.equals("--dedup") || f.startsWith("--dedup="))
+				.map(f -> f.substring("--dedup".length()))
+				.findFirst()
+				.orElse(null);
+			ContentAddressedSink blobSink = dedup == null ? null
+				: new ContentAddressedSink(sink, dedup.isEmpty() ? null : new File(dedup.substring(1)));
 
-				byte[] data = src.getStorage().loadArchive(srcArc);
-				if (data == null)
+			// dumpers fork their archives and files into this pool, so it must be work-stealing
+			ForkJoinPool tp = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+			int jobs = flags.stream()
+				.filter(f -> f.startsWith("--jobs="))
+				.map(f -> Integer.parseInt(f.substring("--jobs=".length())))
+				.findFirst()
+				.orElse(DEFAULT_JOBS);
+			List<ForkJoinTask<Void>> tasks = DumpScheduler.run(store, dumpers, jobs, tp, d ->
+			{
+				DumpSink ds = (blobSink != null && isAnnotated(d, Blobs.class) ? blobSink : recordSink).child(d.name().toLowerCase());
+				metrics.stage(d.name().toLowerCase()).run(() ->
 				{
-					System.out.println("" + srcIdx.getId() + " " + srcArc.getArchiveId());
+					DumpManifest manifest = sink instanceof DirectorySink && ndjson == null
+						? DumpManifest.load(new File(((DirectorySink) sink).getDirectory(), d.name().toLowerCase()), incremental)
+						: DumpManifest.none();
+					try
+					{
+						d.dump(store, ds, manifest);
+						// the manifest must not claim output that isn't written yet
+						ds.flush();
+					}
+					catch (Exception e)
+					{
+						manifest.invalidate();
+						throw e;
+					}
+					manifest.save();
+					return (Void) null;
+				});
+			});
+			tasks.forEach(i ->
+			{
+				try
+				{
+					i.get();
 				}
-				else
+				catch (Exception e)
+				{
+					e.printStackTrace();
+				}
+			});
+
+			tp.shutdown();
+
+			if (blobSink != null)
+			{
+				blobSink.close();
+			}
+		}
+	}
+
+	private static String runQuery(DefinitionIndex index, String query)
+	{
+		JsonObject out = new JsonObject();
+		out.addProperty("query", query);
+		try
+		{
+			long start = System.nanoTime();
+			int[] ids = index.query(query);
+			out.addProperty("micros", (System.nanoTime() - start) / 1000);
+
+			DefinitionIndex.Type type = DefinitionIndex.Type.valueOf(query.split("\\?", 2)[0].trim().toUpperCase());
+			JsonArray results = new JsonArray();
+			for (int id : ids)
+			{
+				JsonObject r = new JsonObject();
+				r.addProperty("id", id);
+				if (type != DefinitionIndex.Type.DBROW)
 				{
-					dst.getStorage().saveArchive(dstArc, data);
+					r.addProperty("name", index.getName(type, id));
 				}
+				results.add(r);
 			}
+			out.add("results", results);
+		}
+		catch (IllegalArgumentException e)
+		{
+			out.addProperty("error", e.getMessage());
+		}
+		return out.toString();
+	}
+
+	static boolean isAnnotated(Dumper dumper, Class<? extends Annotation> annotation)
+	{
+		try
+		{
+			return Dumper.class.getField(dumper.name()).isAnnotationPresent(annotation);
+		}
+		catch (NoSuchFieldException e)
+		{
+			throw new AssertionError(e);
+		}
+	}
+
+	private static DumpSink openSink(File out, Set<String> flags) throws IOException
+	{
+		DumpSink sink = ArchiveSink.open(out);
+		if (sink == null)
+		{
+			int ioThreads = flags.stream()
+				.filter(f -> f.startsWith("--io-threads="))
+				.map(f -> Integer.parseInt(f.substring("--io-threads=".length())))
+				.findFirst()
+				.orElse(DEFAULT_IO_THREADS);
+			sink = new DirectorySink(out, ioThreads, flags.contains("--fsync"));
+		}
+		return sink;
+	}
+
+	private static final int DEFAULT_IO_THREADS = 4;
+	private static final int DEFAULT_JOBS = 4;
+
+	// archives loaded and verified ahead of the writer, which bounds the memory used by the pipeline
+	private static final int COPY_WINDOW = 256;
+	private static final byte[] STORED = new byte[0];
+
+	private static Store loadStore(Metrics metrics, File directory, LoadOption... options) throws IOException
+	{
+		return loadStore(metrics, directory, null, options);
+	}
+
+	private static Store loadStore(Metrics metrics, File directory, Set<Integer> indexes, LoadOption... options) throws IOException
+	{
+		return metrics.stage("load").run(() -> loadStore(directory, indexes, options));
+	}
+
+	static void copyStore(Store dst, Store src) throws IOException
+	{
+		// loads run on the pool, so they have to be counted against the caller's stage explicitly
+		Metrics.Stage stage = Metrics.current();
+		HistoryStorage history = dst.getStorage() instanceof HistoryStorage ? (HistoryStorage) dst.getStorage() : null;
+		ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		try
+		{
+			Iterator<Archive> reader = src.getIndexes().stream()
+				.flatMap(i -> i.getArchives().stream())
+				.iterator();
+			Deque<Future<byte[]>> pending = new ArrayDeque<>();
+
+			for (Index srcIdx : src.getIndexes())
+			{
+				Index dstIdx = dst.addIndex(srcIdx.getId());
+				dstIdx.setCompression(srcIdx.getCompression());
+				dstIdx.setCrc(srcIdx.getCrc());
+				dstIdx.setRevision(srcIdx.getRevision());
+				dstIdx.setNamed(srcIdx.isNamed());
+				dstIdx.setProtocol(srcIdx.getProtocol());
+				for (Archive srcArc : srcIdx.getArchives())
+				{
+					while (pending.size() < COPY_WINDOW && reader.hasNext())
+					{
+						Archive a = reader.next();
+						pending.add(pool.submit(() ->
+						{
+							Metrics.Stage p = Metrics.enter(stage);
+							try
+							{
+								// payloads an earlier revision already stored don't have to be read again
+								return history != null && history.contains(a) ? STORED : loadVerified(src, a);
+							}
+							finally
+							{
+								Metrics.exit(p);
+							}
+						}));
+					}
+
+					Archive dstArc = dstIdx.addArchive(srcArc.getArchiveId());
+
+					dstArc.setCompression(srcArc.getCompression());
+					dstArc.setCrc(srcArc.getCrc());
+					dstArc.setFileData(srcArc.getFileData());
+					dstArc.setNameHash(srcArc.getNameHash());
+					dstArc.setRevision(srcArc.getRevision());
+
+					// futures complete in submission order, which is this order, so the output is the same as a serial copy
+					byte[] data = Futures.getChecked(pending.remove(), IOException.class);
+					if (data == STORED)
+					{
+						continue;
+					}
+					if (data == null)
+					{
+						System.out.println("" + srcIdx.getId() + " " + srcArc.getArchiveId());
+					}
+					else
+					{
+						dst.getStorage().saveArchive(dstArc, data);
+						Metrics.fileWritten(data.length);
+					}
+				}
+			}
+		}
+		finally
+		{
+			pool.shutdownNow();
 		}
 
 		dst.save();
 	}
 
-	public static Store loadStore(File directory) throws IOException
+	private static byte[] loadVerified(Store store, Archive archive) throws IOException
 	{
+		byte[] data = store.getStorage().loadArchive(archive);
+		if (data != null)
+		{
+			Metrics.archiveRead(data.length);
+		}
+		if (data != null && data.length >= 5)
+		{
+			// the crc covers the container, but not the revision that may be appended to it
+			int compressedLength = Ints.fromBytes(data[1], data[2], data[3], data[4]);
+			long length = 5L + compressedLength + (data[0] != 0 ? 4 : 0);
+			if (compressedLength < 0 || length > data.length)
+			{
+				System.out.println(archive.getIndex().getId() + " " + archive.getArchiveId() + " is truncated");
+			}
+			else
+			{
+				CRC32 crc = new CRC32();
+				crc.update(data, 0, (int) length);
+				if ((int) crc.getValue() != archive.getCrc())
+				{
+					System.out.println(archive.getIndex().getId() + " " + archive.getArchiveId() + " has a crc mismatch");
+				}
+			}
+		}
+		return data;
+	}
+
+	public enum LoadOption
+	{
+		/**
+		 * Read jagex caches through {@link MappedDiskStorage}
+		 */
+		MMAP,
+		/**
+		 * Only decode flat cache archives when they are loaded, with {@link LazyFlatStorage}
+		 */
+		LAZY,
+	}
+
+	/**
+	 * Opens a jagex or flat cache, or a revision of a flat cache history. Stores opened with any
+	 * {@link LoadOption} are read only
+	 */
+	public static Store loadStore(File directory, LoadOption... options) throws IOException
+	{
+		return loadStore(directory, null, options);
+	}
+
+	/**
+	 * Opens a cache with only {@code indexes}, or every index if it is null. Flat caches opened
+	 * with only some indexes are always opened with {@link LazyFlatStorage}, so they don't read
+	 * the other indexes at all, but only write its side indexes with {@link LoadOption#LAZY}
+	 */
+	public static Store loadStore(File directory, Set<Integer> indexes, LoadOption... options) throws IOException
+	{
+		Set<LoadOption> opts = options.length == 0 ? EnumSet.noneOf(LoadOption.class) : EnumSet.copyOf(Arrays.asList(options));
+
 		Storage s = null;
 		if (new File(directory, "main_file_cache.dat2").exists())
 		{
-			s = new DiskStorage(directory);
+			s = opts.contains(LoadOption.MMAP) ? new MappedDiskStorage(directory) : new DiskStorage(directory);
 		}
 		else if (new File(directory, "0.flatcache").exists())
 		{
-			s = new FlatStorage(directory);
+			if (opts.contains(LoadOption.LAZY))
+			{
+				s = new LazyFlatStorage(directory, indexes);
+			}
+			else
+			{
+				// only --lazy may leave side indexes in the cache directory
+				s = indexes != null ? new LazyFlatStorage(directory, indexes, false) : new FlatStorage(directory);
+			}
+		}
+		else if (new File(directory, BinaryFlatStorage.FILE_NAME).exists())
+		{
+			s = new BinaryFlatStorage(directory);
+		}
+		else if (new File(directory, HistoryStorage.FILE_NAME).exists())
+		{
+			s = new HistoryStorage(directory);
 		}
 		else
 		{
@@ -235,6 +750,16 @@ public class FlatCache
 
 		Store st = new Store(s);
 		st.load();
+		if (indexes != null)
+		{
+			for (Index idx : new ArrayList<>(st.getIndexes()))
+			{
+				if (!indexes.contains(idx.getId()))
+				{
+					st.removeIndex(idx);
+				}
+			}
+		}
 		return st;
 	}
 }
@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import net.runelite.cache.fs.Archive;
+
+/**
+ * The archive payloads of every revision in a flat cache history, each stored once no matter how
+ * many revisions reference it. Payloads are keyed by index, archive, revision and crc, and appended
+ * to {@code payloads.bin}, with one record per payload appended to {@code payloads.idx}:
+ * <pre>
+ * int index, int archive, int revision, int crc, long offset, int length
+ * </pre>
+ * Records pointing past the end of {@code payloads.bin} are from an interrupted write, and are
+ * ignored. The revisions themselves are {@link HistoryStorage}s in subdirectories of the history.
+ * All values are big endian
+ */
+class FlatCacheHistory
+{
+	static final String PAYLOADS = "payloads.bin";
+	static final String PAYLOAD_INDEX = "payloads.idx";
+
+	private static final int RECORD_SIZE = 28;
+
+	// readers and writers of a history don't share an instance, as readers never touch the files
+	private static final Map<File, FlatCacheHistory> OPEN = new HashMap<>();
+	private static final Map<File, FlatCacheHistory> OPEN_READ_ONLY = new HashMap<>();
+
+	private static final class Key
+	{
+		private final int index;
+		private final int archive;
+		private final int revision;
+		private final int crc;
+
+		private Key(int index, int archive, int revision, int crc)
+		{
+			this.index = index;
+			this.archive = archive;
+			this.revision = revision;
+			this.crc = crc;
+		}
+
+		private Key(Archive archive)
+		{
+			this(archive.getIndex().getId(), archive.getArchiveId(), archive.getRevision(), archive.getCrc());
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Key))
+			{
+				return false;
+			}
+
+			Key k = (Key) o;
+			return index == k.index && archive == k.archive && revision == k.revision && crc == k.crc;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return ((index * 31 + archive) * 31 + revision) * 31 + crc;
+		}
+	}
+
+	private final File directory;
+	private final Map<Key, long[]> payloads = new ConcurrentHashMap<>();
+	private final FileChannel data;
+	// null if opened read only
+	private final DataOutputStream index;
+	private int references;
+
+	private FlatCacheHistory(File directory, boolean writable) throws IOException
+	{
+		this.directory = directory;
+		if (!writable)
+		{
+			data = FileChannel.open(new File(directory, PAYLOADS).toPath(), StandardOpenOption.READ);
+			try
+			{
+				readIndex(new File(directory, PAYLOAD_INDEX), data.size());
+			}
+			catch (IOException e)
+			{
+				data.close();
+				throw e;
+			}
+			index = null;
+			return;
+		}
+
+		directory.mkdirs();
+		data = FileChannel.open(new File(directory, PAYLOADS).toPath(), StandardOpenOption.CREATE,
+			StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try
+		{
+			long valid = readIndex(new File(directory, PAYLOAD_INDEX), data.size());
+			FileChannel idx = FileChannel.open(new File(directory, PAYLOAD_INDEX).toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE);
+			// drop records of payloads that were never completely written
+			idx.truncate(valid);
+			idx.position(valid);
+			index = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(idx), 1 << 16));
+		}
+		catch (IOException e)
+		{
+			data.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Opens the history in {@code directory}. If {@code writable} is set the history is created if
+	 * it doesn't exist, and records of interrupted writes are dropped; otherwise nothing in it is
+	 * modified. Every store of the history opened in this process the same way shares one instance,
+	 * which must be {@link #release() released}
+	 */
+	static FlatCacheHistory open(File directory, boolean writable) throws IOException
+	{
+		File key = directory.getCanonicalFile();
+		synchronized (OPEN)
+		{
+			Map<File, FlatCacheHistory> open = writable ? OPEN : OPEN_READ_ONLY;
+			FlatCacheHistory history = open.get(key);
+			if (history == null)
+			{
+				history = new FlatCacheHistory(key, writable);
+				open.put(key, history);
+			}
+			history.references++;
+			return history;
+		}
+	}
+
+	void release() throws IOException
+	{
+		synchronized (OPEN)
+		{
+			if (--references > 0)
+			{
+				return;
+			}
+			(index != null ? OPEN : OPEN_READ_ONLY).remove(directory);
+		}
+
+		synchronized (this)
+		{
+			if (index != null)
+			{
+				index.close();
+			}
+			data.close();
+		}
+	}
+
+	private long readIndex(File file, long dataSize) throws IOException
+	{
+		if (!file.exists())
+		{
+			return 0;
+		}
+
+		long valid = 0;
+		try (DataInputStream is = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16)))
+		{
+			for (; ; )
+			{
+				Key key = new Key(is.readInt(), is.readInt(), is.readInt(), is.readInt());
+				long offset = is.readLong();
+				int length = is.readInt();
+				if (offset + length > dataSize)
+				{
+					break;
+				}
+
+				payloads.put(key, new long[]{offset, length});
+				valid += RECORD_SIZE;
+			}
+		}
+		catch (EOFException e)
+		{
+			// a partial record at the end is from an interrupted write
+		}
+		return valid;
+	}
+
+	boolean contains(Archive archive)
+	{
+		return payloads.containsKey(new Key(archive));
+	}
+
+	/**
+	 * Reads the payload of {@code archive}, or null if no revision stored it
+	 */
+	byte[] read(Archive archive) throws IOException
+	{
+		long[] entry = payloads.get(new Key(archive));
+		if (entry == null)
+		{
+			return null;
+		}
+
+		// positional reads don't move the channel, so these can run concurrently with each other and with writes
+		byte[] buf = new byte[(int) entry[1]];
+		ByteBuffer bb = ByteBuffer.wrap(buf);
+		while (bb.hasRemaining())
+		{
+			if (data.read(bb, entry[0] + bb.position()) < 0)
+			{
+				throw new EOFException("\"" + new File(directory, PAYLOADS) + "\" is truncated");
+			}
+		}
+		return buf;
+	}
+
+	/**
+	 * Stores the payload of {@code archive}, unless an identical archive is already stored
+	 */
+	synchronized void write(Archive archive, byte[] payload) throws IOException
+	{
+		checkWritable();
+		Key key = new Key(archive);
+		if (payloads.containsKey(key))
+		{
+			return;
+		}
+
+		long offset = data.size();
+		ByteBuffer bb = ByteBuffer.wrap(payload);
+		while (bb.hasRemaining())
+		{
+			data.write(bb, offset + bb.position());
+		}
+
+		index.writeInt(key.index);
+		index.writeInt(key.archive);
+		index.writeInt(key.revision);
+		index.writeInt(key.crc);
+		index.writeLong(offset);
+		index.writeInt(payload.length);
+		payloads.put(key, new long[]{offset, payload.length});
+	}
+
+	/**
+	 * Forces stored payloads to disk, so the revision referencing them can be recorded
+	 */
+	synchronized void sync() throws IOException
+	{
+		checkWritable();
+		index.flush();
+		data.force(false);
+	}
+
+	private void checkWritable() throws IOException
+	{
+		if (index == null)
+		{
+			throw new IOException("\"" + directory + "\" was opened read only");
+		}
+	}
+}
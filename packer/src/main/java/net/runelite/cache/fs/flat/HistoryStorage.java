@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.index.FileData;
+
+/**
+ * One revision of a delta encoded flat cache history. The revision lives in a subdirectory of the
+ * history, and only records its metadata, in {@code revision.bin}:
+ * <pre>
+ * header:   int magic, int version
+ * table:    int index count, then for each index
+ *             int id, int protocol, int revision, int compression, int crc, byte named, int archive count
+ *             and for each archive
+ *               int id, int name hash, int revision, int crc, int compression,
+ *               int file count (-1 if unset), then int id, int name hash for each file
+ * </pre>
+ * Archive payloads are stored once for the whole history by {@link FlatCacheHistory}, and looked
+ * up by index, archive, revision and crc. {@code revision.bin} is written last, so a revision that
+ * has one is complete. All values are big endian
+ */
+public class HistoryStorage implements Storage
+{
+	public static final String FILE_NAME = "revision.bin";
+
+	private static final int MAGIC = 0x464C4348; // FLCH
+	private static final int VERSION = 1;
+
+	private final File file;
+	private final FlatCacheHistory history;
+
+	/**
+	 * Opens a revision read only
+	 *
+	 * @param directory the revision, a subdirectory of the history
+	 */
+	public HistoryStorage(File directory) throws IOException
+	{
+		this(directory, false);
+	}
+
+	/**
+	 * @param directory the revision, a subdirectory of the history
+	 * @param writable  whether the revision is being packed, creating the history if needed
+	 */
+	public HistoryStorage(File directory, boolean writable) throws IOException
+	{
+		this.file = new File(directory, FILE_NAME);
+		this.history = FlatCacheHistory.open(directory.getAbsoluteFile().getParentFile(), writable);
+	}
+
+	/**
+	 * If the payload of {@code archive} is already in the history, so it doesn't have to be read
+	 * from the cache being packed
+	 */
+	public boolean contains(Archive archive)
+	{
+		return history.contains(archive);
+	}
+
+	@Override
+	public void init(Store store)
+	{
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		history.release();
+	}
+
+	@Override
+	public void load(Store store) throws IOException
+	{
+		try (DataInputStream is = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16)))
+		{
+			if (is.readInt() != MAGIC || is.readInt() != VERSION)
+			{
+				throw new IOException("\"" + file + "\" isn't a flat cache history revision");
+			}
+
+			for (int indexCount = is.readInt(); indexCount > 0; indexCount--)
+			{
+				Index idx = store.addIndex(is.readInt());
+				idx.setProtocol(is.readInt());
+				idx.setRevision(is.readInt());
+				idx.setCompression(is.readInt());
+				idx.setCrc(is.readInt());
+				idx.setNamed(is.readByte() != 0);
+
+				for (int archiveCount = is.readInt(); archiveCount > 0; archiveCount--)
+				{
+					Archive archive = idx.addArchive(is.readInt());
+					archive.setNameHash(is.readInt());
+					archive.setRevision(is.readInt());
+					archive.setCrc(is.readInt());
+					archive.setCompression(is.readInt());
+
+					int fileCount = is.readInt();
+					if (fileCount != -1)
+					{
+						FileData[] fileData = new FileData[fileCount];
+						for (int i = 0; i < fileCount; i++)
+						{
+							FileData fd = new FileData();
+							fd.setId(is.readInt());
+							fd.setNameHash(is.readInt());
+							fileData[i] = fd;
+						}
+						archive.setFileData(fileData);
+					}
+				}
+			}
+		}
+	}
+
+	@Override
+	public byte[] loadArchive(Archive archive) throws IOException
+	{
+		return history.read(archive);
+	}
+
+	@Override
+	public void saveArchive(Archive archive, byte[] data) throws IOException
+	{
+		history.write(archive, data);
+	}
+
+	@Override
+	public void save(Store store) throws IOException
+	{
+		history.sync();
+
+		File tmp = new File(file.getPath() + ".tmp");
+		try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16)))
+		{
+			os.writeInt(MAGIC);
+			os.writeInt(VERSION);
+
+			os.writeInt(store.getIndexes().size());
+			for (Index idx : store.getIndexes())
+			{
+				os.writeInt(idx.getId());
+				os.writeInt(idx.getProtocol());
+				os.writeInt(idx.getRevision());
+				os.writeInt(idx.getCompression());
+				os.writeInt(idx.getCrc());
+				os.writeByte(idx.isNamed() ? 1 : 0);
+				os.writeInt(idx.getArchives().size());
+
+				for (Archive archive : idx.getArchives())
+				{
+					os.writeInt(archive.getArchiveId());
+					os.writeInt(archive.getNameHash());
+					os.writeInt(archive.getRevision());
+					os.writeInt(archive.getCrc());
+					os.writeInt(archive.getCompression());
+
+					FileData[] fileData = archive.getFileData();
+					if (fileData == null)
+					{
+						os.writeInt(-1);
+					}
+					else
+					{
+						os.writeInt(fileData.length);
+						for (FileData fd : fileData)
+						{
+							os.writeInt(fd.getId());
+							os.writeInt(fd.getNameHash());
+						}
+					}
+				}
+			}
+		}
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
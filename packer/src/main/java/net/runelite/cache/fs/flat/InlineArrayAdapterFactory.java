@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+
+/**
+ * Writes primitive arrays on a single line in pretty printed output, instead of one element per
+ * line. Elements are written straight to the {@link JsonWriter} as they are read
+ */
+class InlineArrayAdapterFactory implements TypeAdapterFactory
+{
+	private final String indent;
+
+	/**
+	 * @param indent the indent the writers are configured with, restored after each array
+	 */
+	InlineArrayAdapterFactory(String indent)
+	{
+		this.indent = indent;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type)
+	{
+		Class<?> raw = type.getRawType();
+		if (raw != int[].class && raw != short[].class && raw != byte[].class && raw != float[].class)
+		{
+			return null;
+		}
+
+		TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+		return new TypeAdapter<T>()
+		{
+			@Override
+			public void write(JsonWriter out, T value) throws IOException
+			{
+				if (value == null)
+				{
+					out.nullValue();
+					return;
+				}
+
+				out.beginArray();
+				// the writer only breaks lines while it has an indent
+				out.setIndent("");
+				try
+				{
+					writeElements(out, value);
+				}
+				finally
+				{
+					out.endArray();
+					out.setIndent(indent);
+				}
+			}
+
+			@Override
+			public T read(JsonReader in) throws IOException
+			{
+				return delegate.read(in);
+			}
+		};
+	}
+
+	private static void writeElements(JsonWriter out, Object value) throws IOException
+	{
+		if (value instanceof int[])
+		{
+			for (int v : (int[]) value)
+			{
+				out.value(v);
+			}
+		}
+		else if (value instanceof short[])
+		{
+			for (short v : (short[]) value)
+			{
+				out.value(v);
+			}
+		}
+		else if (value instanceof byte[])
+		{
+			for (byte v : (byte[]) value)
+			{
+				out.value(v);
+			}
+		}
+		else
+		{
+			for (float v : (float[]) value)
+			{
+				if (Float.isNaN(v) || Float.isInfinite(v))
+				{
+					throw new IllegalArgumentException(v + " is not a valid double value as per JSON specification");
+				}
+				// as a Number, so it is printed like Gson prints a float
+				out.value(Float.valueOf(v));
+			}
+		}
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes objects with a {@link Gson} into UTF-8 bytes through a per thread buffer, instead
+ * of building a String and copying it with getBytes. The output matches {@link Gson#toJson(Object)}
+ */
+class JsonEncoder
+{
+	private final Gson gson;
+
+	private final ClassValue<TypeAdapter<?>> adapters = new ClassValue<TypeAdapter<?>>()
+	{
+		@Override
+		protected TypeAdapter<?> computeValue(Class<?> type)
+		{
+			return gson.getAdapter(type);
+		}
+	};
+
+	private final ThreadLocal<Buffer> buffers = ThreadLocal.withInitial(Buffer::new);
+
+	JsonEncoder(Gson gson)
+	{
+		this.gson = gson;
+	}
+
+	private static class Buffer
+	{
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+		private final Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8);
+	}
+
+	public byte[] encode(Object value) throws IOException
+	{
+		Buffer buf = buffers.get();
+		buf.bytes.reset();
+		try
+		{
+			write(buf.writer, value);
+			buf.writer.flush();
+			return buf.bytes.toByteArray();
+		}
+		catch (IOException | RuntimeException e)
+		{
+			// the writer may still hold part of this document, which would end up in front of the next
+			buffers.remove();
+			throw e;
+		}
+		finally
+		{
+			if (buf.bytes.size() > 1 << 20)
+			{
+				// don't pin a large buffer to every worker thread
+				buffers.remove();
+			}
+		}
+	}
+
+	/**
+	 * Writes {@code value} as one document to {@code out}, without flushing it
+	 */
+	@SuppressWarnings("unchecked")
+	public void write(Writer out, Object value) throws IOException
+	{
+		JsonWriter jw = gson.newJsonWriter(out);
+		// match Gson.toJson, which always writes leniently and escapes html characters unless told not to
+		jw.setLenient(true);
+		jw.setHtmlSafe(gson.htmlSafe());
+		if (value == null)
+		{
+			jw.nullValue();
+			return;
+		}
+
+		TypeAdapter<Object> adapter = (TypeAdapter<Object>) adapters.get(value.getClass());
+		adapter.write(jw, value);
+	}
+}
@@ -0,0 +1,498 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.index.FileData;
+
+/**
+ * A read only {@link FlatStorage} that only decodes an archive's contents when it is loaded.
+ * <p>
+ * Each {@code <id>.flatcache} gets a side index, {@code <id>.flatcache.idx}, holding its metadata
+ * and the byte offset of every archive's {@code contents=} line, so opening a store only reads the
+ * side indexes. Side indexes are rebuilt whenever their {@code .flatcache} changes, and replaced
+ * atomically, so concurrent readers never see a partial one. Without persisted side indexes the
+ * offsets are only kept in memory, and nothing is written into the cache directory
+ */
+public class LazyFlatStorage implements Storage
+{
+	private static final String EXTENSION = ".flatcache";
+	private static final String INDEX_EXTENSION = ".idx";
+
+	private static final int MAGIC = 0x464C4349; // FLCI
+	private static final int VERSION = 1;
+
+	private static class Entry
+	{
+		int id;
+		int nameHash;
+		int revision;
+		int crc;
+		int compression = -1;
+		long offset = -1;
+		int length;
+		List<FileData> files;
+	}
+
+	private static class IndexMetadata
+	{
+		long sourceLength;
+		long sourceModified;
+		int protocol;
+		int revision;
+		int compression;
+		int crc;
+		boolean named;
+		final List<Entry> archives = new ArrayList<>();
+	}
+
+	private final File directory;
+	private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+	private final Map<Integer, FileChannel> channels = new ConcurrentHashMap<>();
+	// null to load every index
+	private final Set<Integer> indexes;
+	private final boolean persistIndexes;
+
+	public LazyFlatStorage(File directory)
+	{
+		this(directory, null);
+	}
+
+	/**
+	 * Opens only {@code indexes}, leaving the others unread
+	 */
+	public LazyFlatStorage(File directory, Set<Integer> indexes)
+	{
+		this(directory, indexes, true);
+	}
+
+	/**
+	 * @param persistIndexes whether side indexes are written next to the {@code .flatcache} files
+	 *                       for later opens. Existing up to date side indexes are used either way
+	 */
+	public LazyFlatStorage(File directory, Set<Integer> indexes, boolean persistIndexes)
+	{
+		this.directory = directory;
+		this.indexes = indexes;
+		this.persistIndexes = persistIndexes;
+	}
+
+	@Override
+	public void init(Store store)
+	{
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		for (FileChannel fc : channels.values())
+		{
+			fc.close();
+		}
+		channels.clear();
+	}
+
+	@Override
+	public void load(Store store) throws IOException
+	{
+		String[] idxs = directory.list((dir, name) -> name.endsWith(EXTENSION));
+		if (idxs == null)
+		{
+			throw new IOException("\"" + directory + "\" isn't a directory");
+		}
+
+		for (String idxfile : idxs)
+		{
+			int id = Integer.parseInt(idxfile.substring(0, idxfile.length() - EXTENSION.length()));
+			if (indexes != null && !indexes.contains(id))
+			{
+				continue;
+			}
+			File source = new File(directory, idxfile);
+			File sideIndex = new File(directory, idxfile + INDEX_EXTENSION);
+
+			IndexMetadata md = readIndex(sideIndex, source);
+			if (md == null)
+			{
+				md = scan(source);
+				if (persistIndexes)
+				{
+					try
+					{
+						writeIndex(sideIndex, md);
+					}
+					catch (IOException e)
+					{
+						// a read only cache still works, it just gets scanned every time
+						sideIndex.delete();
+					}
+				}
+			}
+
+			Index idx = store.addIndex(id);
+			idx.setProtocol(md.protocol);
+			idx.setRevision(md.revision);
+			idx.setCompression(md.compression);
+			idx.setCrc(md.crc);
+			idx.setNamed(md.named);
+
+			for (Entry e : md.archives)
+			{
+				Archive archive = idx.addArchive(e.id);
+				archive.setNameHash(e.nameHash);
+				archive.setRevision(e.revision);
+				archive.setCrc(e.crc);
+				if (e.compression != -1)
+				{
+					archive.setCompression(e.compression);
+				}
+				if (e.files != null)
+				{
+					archive.setFileData(e.files.toArray(new FileData[0]));
+				}
+				if (e.offset != -1)
+				{
+					entries.put((long) id << 32 | e.id, e);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void save(Store store)
+	{
+		throw new UnsupportedOperationException("LazyFlatStorage is read only");
+	}
+
+	@Override
+	public byte[] loadArchive(Archive archive) throws IOException
+	{
+		int indexId = archive.getIndex().getId();
+		Entry e = entries.get((long) indexId << 32 | archive.getArchiveId());
+		if (e == null)
+		{
+			return null;
+		}
+
+		FileChannel fc = channels.get(indexId);
+		if (fc == null)
+		{
+			fc = FileChannel.open(new File(directory, indexId + EXTENSION).toPath(), StandardOpenOption.READ);
+			FileChannel existing = channels.putIfAbsent(indexId, fc);
+			if (existing != null)
+			{
+				fc.close();
+				fc = existing;
+			}
+		}
+
+		ByteBuffer buf = ByteBuffer.allocate(e.length);
+		while (buf.hasRemaining())
+		{
+			if (fc.read(buf, e.offset + buf.position()) < 0)
+			{
+				throw new EOFException("flatcache " + indexId + " changed while it was open");
+			}
+		}
+		return Base64.getDecoder().decode(buf.array());
+	}
+
+	@Override
+	public void saveArchive(Archive archive, byte[] data)
+	{
+		throw new UnsupportedOperationException("LazyFlatStorage is read only");
+	}
+
+	/**
+	 * Reads the metadata of a .flatcache file, recording where each archive's contents are
+	 * instead of decoding them. Keys are handled the same way as {@link FlatStorage}
+	 */
+	private static IndexMetadata scan(File source) throws IOException
+	{
+		IndexMetadata md = new IndexMetadata();
+		md.sourceLength = source.length();
+		md.sourceModified = source.lastModified();
+
+		try (InputStream is = new BufferedInputStream(new FileInputStream(source), 1 << 16))
+		{
+			Entry archive = null;
+			StringBuilder sb = new StringBuilder();
+			long pos = 0;
+			int lineNo = 0;
+			for (; ; )
+			{
+				sb.setLength(0);
+				int c;
+				for (; (c = is.read()) != -1 && c != '=' && c != '\n'; pos++)
+				{
+					sb.append((char) c);
+				}
+				if (c == -1 && sb.length() == 0)
+				{
+					break;
+				}
+
+				lineNo++;
+				pos++;
+				if (c != '=')
+				{
+					throw new IOException("error reading flatcache at " + source.getName() + ":" + lineNo);
+				}
+				String key = sb.toString();
+
+				if ("contents".equals(key) && archive != null)
+				{
+					archive.offset = pos;
+					int last = 0;
+					for (; (c = is.read()) != -1 && c != '\n'; pos++)
+					{
+						last = c;
+					}
+					archive.length = (int) (pos - archive.offset) - (last == '\r' ? 1 : 0);
+					pos++;
+					continue;
+				}
+
+				sb.setLength(0);
+				for (; (c = is.read()) != -1 && c != '\n'; pos++)
+				{
+					sb.append((char) c);
+				}
+				pos++;
+				if (sb.length() > 0 && sb.charAt(sb.length() - 1) == '\r')
+				{
+					sb.setLength(sb.length() - 1);
+				}
+				String value = sb.toString();
+
+				try
+				{
+					if ("file".equals(key))
+					{
+						if (archive == null)
+						{
+							throw new IOException("file with no archive");
+						}
+
+						int vidx = value.indexOf('=');
+						FileData fd = new FileData();
+						fd.setId(Integer.parseInt(value.substring(0, vidx)));
+						fd.setNameHash(Integer.parseInt(value.substring(vidx + 1)));
+						if (archive.files == null)
+						{
+							archive.files = new ArrayList<>();
+						}
+						archive.files.add(fd);
+						continue;
+					}
+
+					if (archive != null)
+					{
+						switch (key)
+						{
+							case "namehash":
+								archive.nameHash = Integer.parseInt(value);
+								continue;
+							case "revision":
+								archive.revision = Integer.parseInt(value);
+								continue;
+							case "crc":
+								archive.crc = Integer.parseInt(value);
+								continue;
+							case "compression":
+								archive.compression = Integer.parseInt(value);
+								continue;
+						}
+					}
+
+					switch (key)
+					{
+						case "protocol":
+							md.protocol = Integer.parseInt(value);
+							continue;
+						case "revision":
+							md.revision = Integer.parseInt(value);
+							continue;
+						case "compression":
+							md.compression = Integer.parseInt(value);
+							continue;
+						case "crc":
+							md.crc = Integer.parseInt(value);
+							continue;
+						case "named":
+							md.named = Boolean.parseBoolean(value);
+							continue;
+						case "id":
+							archive = new Entry();
+							archive.id = Integer.parseInt(value);
+							md.archives.add(archive);
+							continue;
+					}
+
+					throw new IOException("unknown key: \"" + key + "\"");
+				}
+				catch (Exception e)
+				{
+					throw new IOException("error reading flatcache at " + source.getName() + ":" + lineNo, e);
+				}
+			}
+		}
+
+		return md;
+	}
+
+	private static IndexMetadata readIndex(File sideIndex, File source)
+	{
+		if (!sideIndex.exists())
+		{
+			return null;
+		}
+
+		try (DataInputStream is = new DataInputStream(new BufferedInputStream(new FileInputStream(sideIndex), 1 << 16)))
+		{
+			if (is.readInt() != MAGIC || is.readInt() != VERSION)
+			{
+				return null;
+			}
+
+			IndexMetadata md = new IndexMetadata();
+			md.sourceLength = is.readLong();
+			md.sourceModified = is.readLong();
+			if (md.sourceLength != source.length() || md.sourceModified != source.lastModified())
+			{
+				return null;
+			}
+
+			md.protocol = is.readInt();
+			md.revision = is.readInt();
+			md.compression = is.readInt();
+			md.crc = is.readInt();
+			md.named = is.readBoolean();
+
+			for (int count = is.readInt(); count > 0; count--)
+			{
+				Entry e = new Entry();
+				e.id = is.readInt();
+				e.nameHash = is.readInt();
+				e.revision = is.readInt();
+				e.crc = is.readInt();
+				e.compression = is.readInt();
+				e.offset = is.readLong();
+				e.length = is.readInt();
+				int files = is.readInt();
+				if (files != -1)
+				{
+					e.files = new ArrayList<>(files);
+					for (int i = 0; i < files; i++)
+					{
+						FileData fd = new FileData();
+						fd.setId(is.readInt());
+						fd.setNameHash(is.readInt());
+						e.files.add(fd);
+					}
+				}
+				md.archives.add(e);
+			}
+			return md;
+		}
+		catch (IOException e)
+		{
+			// rebuild it
+			return null;
+		}
+	}
+
+	private static void writeIndex(File sideIndex, IndexMetadata md) throws IOException
+	{
+		Path tmp = Files.createTempFile(sideIndex.getParentFile().toPath(), sideIndex.getName(), ".tmp");
+		try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16)))
+		{
+			os.writeInt(MAGIC);
+			os.writeInt(VERSION);
+			os.writeLong(md.sourceLength);
+			os.writeLong(md.sourceModified);
+			os.writeInt(md.protocol);
+			os.writeInt(md.revision);
+			os.writeInt(md.compression);
+			os.writeInt(md.crc);
+			os.writeBoolean(md.named);
+
+			os.writeInt(md.archives.size());
+			for (Entry e : md.archives)
+			{
+				os.writeInt(e.id);
+				os.writeInt(e.nameHash);
+				os.writeInt(e.revision);
+				os.writeInt(e.crc);
+				os.writeInt(e.compression);
+				os.writeLong(e.offset);
+				os.writeInt(e.length);
+				if (e.files == null)
+				{
+					os.writeInt(-1);
+				}
+				else
+				{
+					os.writeInt(e.files.size());
+					for (FileData fd : e.files)
+					{
+						os.writeInt(fd.getId());
+						os.writeInt(fd.getNameHash());
+					}
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			Files.deleteIfExists(tmp);
+			throw e;
+		}
+		Files.move(tmp, sideIndex.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.DiskStorage;
+
+/**
+ * A read only {@link Storage} for jagex caches that maps {@code main_file_cache.dat2} and the
+ * {@code .idx} files once, and reassembles archives straight out of the mapped sectors instead
+ * of seeking and reading each sector into its own buffer. Index metadata is still loaded by
+ * {@link DiskStorage}
+ */
+public class MappedDiskStorage implements Storage
+{
+	private static final String MAIN_FILE_CACHE_DAT = "main_file_cache.dat2";
+	private static final String MAIN_FILE_CACHE_IDX = "main_file_cache.idx";
+
+	private static final int SECTOR_SIZE = 520;
+	private static final int INDEX_ENTRY_LEN = 6;
+
+	// a mapping can be at most 2GiB, so the data file is mapped in chunks of whole sectors
+	private static final long CHUNK_SIZE = (Integer.MAX_VALUE / SECTOR_SIZE) * SECTOR_SIZE;
+
+	private final File directory;
+	private final DiskStorage metadata;
+	private final MappedByteBuffer[] data;
+	private final Map<Integer, MappedByteBuffer> indexes = new ConcurrentHashMap<>();
+
+	public MappedDiskStorage(File directory) throws IOException
+	{
+		this.directory = directory;
+		this.metadata = new DiskStorage(directory);
+
+		try (FileChannel fc = FileChannel.open(new File(directory, MAIN_FILE_CACHE_DAT).toPath(), StandardOpenOption.READ))
+		{
+			long size = fc.size();
+			data = new MappedByteBuffer[(int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+			for (int i = 0; i < data.length; i++)
+			{
+				long off = i * CHUNK_SIZE;
+				data[i] = fc.map(FileChannel.MapMode.READ_ONLY, off, Math.min(CHUNK_SIZE, size - off));
+			}
+		}
+	}
+
+	@Override
+	public void init(Store store) throws IOException
+	{
+		metadata.init(store);
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		metadata.close();
+	}
+
+	@Override
+	public void load(Store store) throws IOException
+	{
+		metadata.load(store);
+	}
+
+	@Override
+	public void save(Store store)
+	{
+		throw new UnsupportedOperationException("MappedDiskStorage is read only");
+	}
+
+	@Override
+	public void saveArchive(Archive archive, byte[] data)
+	{
+		throw new UnsupportedOperationException("MappedDiskStorage is read only");
+	}
+
+	private ByteBuffer index(int id) throws IOException
+	{
+		MappedByteBuffer idx = indexes.get(id);
+		if (idx != null)
+		{
+			return idx;
+		}
+
+		File file = new File(directory, MAIN_FILE_CACHE_IDX + id);
+		if (!file.exists())
+		{
+			return null;
+		}
+
+		try (FileChannel fc = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			idx = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+		}
+
+		MappedByteBuffer existing = indexes.putIfAbsent(id, idx);
+		return existing != null ? existing : idx;
+	}
+
+	private static int readMedium(ByteBuffer buf, int pos)
+	{
+		return (buf.get(pos) & 0xFF) << 16 | (buf.get(pos + 1) & 0xFF) << 8 | buf.get(pos + 2) & 0xFF;
+	}
+
+	@Override
+	public byte[] loadArchive(Archive archive) throws IOException
+	{
+		int indexId = archive.getIndex().getId();
+		int archiveId = archive.getArchiveId();
+
+		ByteBuffer idx = index(indexId);
+		long entry = (long) archiveId * INDEX_ENTRY_LEN;
+		if (idx == null || entry + INDEX_ENTRY_LEN > idx.limit())
+		{
+			return null;
+		}
+
+		int length = readMedium(idx, (int) entry);
+		int sector = readMedium(idx, (int) entry + 3);
+		if (length <= 0 || sector <= 0)
+		{
+			return null;
+		}
+
+		boolean large = archiveId > 0xFFFF;
+		int headerSize = large ? 10 : 8;
+		int dataSize = SECTOR_SIZE - headerSize;
+
+		byte[] out = new byte[length];
+		for (int read = 0, part = 0; read < length; part++)
+		{
+			if (sector <= 0)
+			{
+				return null;
+			}
+
+			long off = (long) sector * SECTOR_SIZE;
+			int chunkId = (int) (off / CHUNK_SIZE);
+			if (chunkId >= data.length)
+			{
+				return null;
+			}
+
+			ByteBuffer chunk = data[chunkId];
+			int pos = (int) (off % CHUNK_SIZE);
+			int len = Math.min(length - read, dataSize);
+			if (pos + headerSize + len > chunk.limit())
+			{
+				return null;
+			}
+
+			int currentArchive;
+			if (large)
+			{
+				currentArchive = chunk.getInt(pos);
+				pos += 4;
+			}
+			else
+			{
+				currentArchive = chunk.getShort(pos) & 0xFFFF;
+				pos += 2;
+			}
+			int currentPart = chunk.getShort(pos) & 0xFFFF;
+			int nextSector = readMedium(chunk, pos + 2);
+			int currentIndex = chunk.get(pos + 5) & 0xFF;
+			pos += 6;
+
+			if (currentArchive != archiveId || currentPart != part || currentIndex != indexId)
+			{
+				return null;
+			}
+
+			ByteBuffer src = chunk.duplicate();
+			src.position(pos);
+			src.get(out, read, len);
+
+			read += len;
+			sector = nextSector;
+		}
+
+		return out;
+	}
+}
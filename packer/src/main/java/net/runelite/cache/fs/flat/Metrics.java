@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import com.google.common.cache.CacheStats;
+import com.google.gson.GsonBuilder;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per stage counters for a pack, unpack or dump run.
+ * <p>
+ * Work is attributed to the stage that is current on the thread doing it. Entering a stage charges the
+ * cpu time and allocation since the last switch to the stage being left, so work a thread steals
+ * from another stage while joining is charged to that stage and not counted twice
+ */
+public class Metrics
+{
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+	private static final boolean CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+	private static final boolean ALLOCATION = THREADS instanceof com.sun.management.ThreadMXBean
+		&& ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemorySupported()
+		&& ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemoryEnabled();
+
+	private static final ThreadLocal<Stage> CURRENT = new ThreadLocal<>();
+	// cpu time and allocated bytes of this thread when the current stage was last charged
+	private static final ThreadLocal<long[]> MARK = ThreadLocal.withInitial(() -> new long[2]);
+
+	private final String command;
+	private final long start = System.nanoTime();
+	private final Map<String, Stage> stages = new LinkedHashMap<>();
+
+	public Metrics(String command)
+	{
+		this.command = command;
+	}
+
+	public static class Stage
+	{
+		private final String name;
+		// a stage can run several times, possibly at once, so its wall time is the sum over its runs
+		private final LongAdder wallTime = new LongAdder();
+		private final AtomicInteger running = new AtomicInteger();
+		private final LongAdder runs = new LongAdder();
+		private volatile long runStart;
+		private final LongAdder cpuTime = new LongAdder();
+		private final LongAdder allocated = new LongAdder();
+		private final LongAdder archives = new LongAdder();
+		private final LongAdder archiveBytes = new LongAdder();
+		private final LongAdder files = new LongAdder();
+		private final LongAdder fileBytes = new LongAdder();
+		private final LongAdder failures = new LongAdder();
+		private final List<String> errors = new ArrayList<>();
+
+		private Stage(String name)
+		{
+			this.name = name;
+		}
+
+		/**
+		 * Runs {@code task} on this thread as this stage, timing it and recording its failure
+		 */
+		public <T, E extends Exception> T run(StageTask<T, E> task) throws E
+		{
+			long start = System.nanoTime();
+			runStart = start;
+			running.incrementAndGet();
+			Stage prev = enter(this);
+			try
+			{
+				return task.run();
+			}
+			catch (Exception e)
+			{
+				failed(e);
+				throw e;
+			}
+			finally
+			{
+				exit(prev);
+				wallTime.add(System.nanoTime() - start);
+				runs.increment();
+				running.decrementAndGet();
+			}
+		}
+
+		/**
+		 * Wall time of the finished runs plus the one in progress, if any
+		 */
+		private long wallTime(long now)
+		{
+			return wallTime.sum() + (running.get() > 0 ? now - runStart : 0);
+		}
+
+		public void failed(Throwable t)
+		{
+			failures.increment();
+			synchronized (errors)
+			{
+				errors.add(t.toString());
+			}
+		}
+
+		public long getFiles()
+		{
+			return files.sum();
+		}
+
+		public long getArchives()
+		{
+			return archives.sum();
+		}
+	}
+
+	@FunctionalInterface
+	public interface StageTask<T, E extends Exception>
+	{
+		T run() throws E;
+	}
+
+	public synchronized Stage stage(String name)
+	{
+		return stages.computeIfAbsent(name, Stage::new);
+	}
+
+	/**
+	 * Makes {@code stage} current on this thread, returning the stage to pass to {@link #exit}
+	 */
+	public static Stage enter(Stage stage)
+	{
+		charge();
+		Stage prev = CURRENT.get();
+		CURRENT.set(stage);
+		return prev;
+	}
+
+	public static void exit(Stage prev)
+	{
+		charge();
+		CURRENT.set(prev);
+	}
+
+	public static Stage current()
+	{
+		return CURRENT.get();
+	}
+
+	private static void charge()
+	{
+		long cpu = CPU_TIME ? THREADS.getCurrentThreadCpuTime() : 0;
+		long alloc = ALLOCATION ? ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+		long[] mark = MARK.get();
+		Stage s = CURRENT.get();
+		if (s != null)
+		{
+			s.cpuTime.add(cpu - mark[0]);
+			s.allocated.add(alloc - mark[1]);
+		}
+		mark[0] = cpu;
+		mark[1] = alloc;
+	}
+
+	/**
+	 * Counts an archive loaded from storage by the current stage
+	 */
+	public static void archiveRead(long bytes)
+	{
+		Stage s = CURRENT.get();
+		if (s != null)
+		{
+			s.archives.increment();
+			s.archiveBytes.add(bytes);
+		}
+	}
+
+	/**
+	 * Counts a file written by the current stage
+	 */
+	public static void fileWritten(long bytes)
+	{
+		Stage s = CURRENT.get();
+		if (s != null)
+		{
+			s.files.increment();
+			s.fileBytes.add(bytes);
+		}
+	}
+
+	/**
+	 * Prints a line for each running stage to stderr every {@code periodSeconds}
+	 */
+	public ScheduledExecutorService printProgress(int periodSeconds)
+	{
+		ScheduledExecutorService exec = Executors.newSingleThreadScheduledExecutor(r ->
+		{
+			Thread t = new Thread(r, "progress");
+			t.setDaemon(true);
+			return t;
+		});
+		exec.scheduleAtFixedRate(() ->
+		{
+			long now = System.nanoTime();
+			for (Stage s : stages())
+			{
+				if (s.running.get() > 0)
+				{
+					System.err.printf("%s: %ds, %d archives read, %d files, %d KiB written%n",
+						s.name, TimeUnit.NANOSECONDS.toSeconds(s.wallTime(now)), s.archives.sum(), s.files.sum(), s.fileBytes.sum() / 1024);
+				}
+			}
+		}, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+		return exec;
+	}
+
+	private synchronized List<Stage> stages()
+	{
+		return new ArrayList<>(stages.values());
+	}
+
+	public void writeReport(File file) throws IOException
+	{
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("command", command);
+		report.put("wallMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		report.put("cpuTimeMeasured", CPU_TIME);
+		report.put("allocationMeasured", ALLOCATION);
+
+		List<Map<String, Object>> stageReports = new ArrayList<>();
+		for (Stage s : stages())
+		{
+			Map<String, Object> sr = new LinkedHashMap<>();
+			sr.put("name", s.name);
+			sr.put("runs", s.runs.sum());
+			sr.put("wallMillis", TimeUnit.NANOSECONDS.toMillis(s.wallTime(System.nanoTime())));
+			sr.put("cpuMillis", TimeUnit.NANOSECONDS.toMillis(s.cpuTime.sum()));
+			sr.put("allocatedBytes", s.allocated.sum());
+			sr.put("archivesRead", s.archives.sum());
+			sr.put("archiveBytes", s.archiveBytes.sum());
+			sr.put("filesWritten", s.files.sum());
+			sr.put("bytesWritten", s.fileBytes.sum());
+			sr.put("failures", s.failures.sum());
+			synchronized (s.errors)
+			{
+				sr.put("errors", new ArrayList<>(s.errors));
+			}
+			stageReports.add(sr);
+		}
+		report.put("stages", stageReports);
+
+		CacheStats cs = ArchiveCache.stats();
+		Map<String, Object> cache = new LinkedHashMap<>();
+		cache.put("hits", cs.hitCount());
+		cache.put("misses", cs.missCount());
+		cache.put("evictions", cs.evictionCount());
+		report.put("archiveCache", cache);
+
+		Files.write(file.toPath(), new GsonBuilder().setPrettyPrinting().create().toJson(report).getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the definitions of each config dumper as one {@code <type>.ndjson} file instead of a
+ * file per definition, with a line per definition, sorted by id:
+ * <pre>
+ * {"id":&lt;id&gt;,"value":&lt;definition&gt;}
+ * </pre>
+ * Compressed files, {@code <type>.ndjson.gz}, are a series of gzip members holding whole lines,
+ * which any gzip reader reads as one stream. {@code <type>.ndjson.idx} indexes the lines by id:
+ * <pre>
+ * int magic, int version, int count, then for each line
+ *   int id, long offset, int offset in member, int length
+ * </pre>
+ * where offset is the line's offset in the file, or of the gzip member holding it, and lengths
+ * don't include the newline. All values are big endian.
+ * <p>
+ * Everything else is written to the wrapped sink unchanged
+ */
+public class NdjsonSink implements DumpSink
+{
+	public static final String EXTENSION = ".ndjson";
+	public static final String INDEX_EXTENSION = ".ndjson.idx";
+
+	private static final int MAGIC = 0x464C434A; // FLCJ
+	private static final int VERSION = 1;
+	// uncompressed bytes per gzip member
+	private static final int MEMBER_SIZE = 64 << 10;
+
+	private static final byte[] PREFIX = "{\"id\":".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] SEPARATOR = ",\"value\":".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] SUFFIX = "}\n".getBytes(StandardCharsets.UTF_8);
+
+	private final DumpSink parent;
+	private final String directory;
+	private final boolean compress;
+
+	public NdjsonSink(DumpSink parent, boolean compress)
+	{
+		this(parent, null, compress);
+	}
+
+	private NdjsonSink(DumpSink parent, String directory, boolean compress)
+	{
+		this.parent = parent;
+		this.directory = directory;
+		this.compress = compress;
+	}
+
+	@Override
+	public void write(String path, byte[] data) throws IOException
+	{
+		parent.write(directory == null ? path : directory + "/" + path, data);
+	}
+
+	@Override
+	public DumpSink child(String directory)
+	{
+		return new NdjsonSink(parent, this.directory == null ? directory : this.directory + "/" + directory, compress);
+	}
+
+	/**
+	 * Writes {@code records}, compact json keyed by id, as the ndjson file of this sink's directory
+	 */
+	public void writeRecords(SortedMap<Integer, byte[]> records) throws IOException
+	{
+		if (directory == null)
+		{
+			throw new IllegalStateException("records need a directory to be named after");
+		}
+
+		ByteArrayOutputStream file = new ByteArrayOutputStream();
+		ByteArrayOutputStream member = new ByteArrayOutputStream(MEMBER_SIZE + 4096);
+		ByteArrayOutputStream index = new ByteArrayOutputStream(12 + records.size() * 20);
+		DataOutputStream idx = new DataOutputStream(index);
+		idx.writeInt(MAGIC);
+		idx.writeInt(VERSION);
+		idx.writeInt(records.size());
+
+		ByteArrayOutputStream out = compress ? member : file;
+		for (Map.Entry<Integer, byte[]> e : records.entrySet())
+		{
+			if (compress && member.size() >= MEMBER_SIZE)
+			{
+				writeMember(file, member);
+			}
+
+			byte[] id = Integer.toString(e.getKey()).getBytes(StandardCharsets.UTF_8);
+			idx.writeInt(e.getKey());
+			idx.writeLong(file.size());
+			idx.writeInt(compress ? member.size() : 0);
+			idx.writeInt(PREFIX.length + id.length + SEPARATOR.length + e.getValue().length + 1);
+
+			out.write(PREFIX);
+			out.write(id);
+			out.write(SEPARATOR);
+			out.write(e.getValue());
+			out.write(SUFFIX);
+		}
+		if (compress && member.size() > 0)
+		{
+			writeMember(file, member);
+		}
+
+		byte[] data = file.toByteArray();
+		parent.write(directory + EXTENSION + (compress ? ".gz" : ""), data);
+		parent.write(directory + INDEX_EXTENSION, index.toByteArray());
+		Metrics.fileWritten(data.length);
+		Metrics.fileWritten(index.size());
+	}
+
+	private static void writeMember(ByteArrayOutputStream file, ByteArrayOutputStream member) throws IOException
+	{
+		try (GZIPOutputStream gz = new GZIPOutputStream(file, 8192))
+		{
+			member.writeTo(gz);
+		}
+		member.reset();
+	}
+
+	@Override
+	public void flush() throws IOException
+	{
+		parent.flush();
+	}
+
+	@Override
+	public void close()
+	{
+	}
+}
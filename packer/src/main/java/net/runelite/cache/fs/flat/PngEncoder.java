@@ -0,0 +1,371 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Encodes ARGB pixels, as held by {@link net.runelite.cache.definitions.SpriteDefinition}, straight into a
+ * PNG without going through a BufferedImage and ImageIO. Images with at most 256 colors are written
+ * palette indexed, everything else as 8 bit RGBA. Fully transparent pixels are all written as 0.
+ * <p>
+ * Instances are thread safe
+ */
+public class PngEncoder
+{
+	private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+	private static final int COLOR_PALETTE = 3;
+	private static final int COLOR_RGBA = 6;
+
+	private final int level;
+	private final ThreadLocal<Deflater> deflaters;
+
+	/**
+	 * @param level the deflate level, 0-9
+	 */
+	public PngEncoder(int level)
+	{
+		if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+		{
+			throw new IllegalArgumentException("bad deflate level " + level);
+		}
+
+		this.level = level;
+		this.deflaters = ThreadLocal.withInitial(() -> new Deflater(level));
+	}
+
+	public int getLevel()
+	{
+		return level;
+	}
+
+	public byte[] encode(int[] argb, int width, int height)
+	{
+		if (width <= 0 || height <= 0 || argb.length < width * height)
+		{
+			throw new IllegalArgumentException("bad image size " + width + "x" + height);
+		}
+
+		int[] palette = palette(argb, width * height);
+
+		byte[] raw;
+		int colorType;
+		if (palette != null)
+		{
+			colorType = COLOR_PALETTE;
+			raw = indexed(argb, width, height, palette);
+		}
+		else
+		{
+			colorType = COLOR_RGBA;
+			raw = rgba(argb, width, height);
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 256);
+		out.write(SIGNATURE, 0, SIGNATURE.length);
+
+		byte[] ihdr = new byte[13];
+		putInt(ihdr, 0, width);
+		putInt(ihdr, 4, height);
+		ihdr[8] = 8;
+		ihdr[9] = (byte) colorType;
+		writeChunk(out, "IHDR", ihdr);
+
+		if (palette != null)
+		{
+			byte[] plte = new byte[palette.length * 3];
+			int alphas = 0;
+			for (int i = 0; i < palette.length; i++)
+			{
+				int c = palette[i];
+				plte[i * 3] = (byte) (c >>> 16);
+				plte[i * 3 + 1] = (byte) (c >>> 8);
+				plte[i * 3 + 2] = (byte) c;
+				if (c >>> 24 != 0xFF)
+				{
+					alphas = i + 1;
+				}
+			}
+			writeChunk(out, "PLTE", plte);
+
+			if (alphas > 0)
+			{
+				byte[] trns = new byte[alphas];
+				for (int i = 0; i < alphas; i++)
+				{
+					trns[i] = (byte) (palette[i] >>> 24);
+				}
+				writeChunk(out, "tRNS", trns);
+			}
+		}
+
+		byte[] idat = deflate(raw);
+		writeChunk(out, "IDAT", idat);
+		writeChunk(out, "IEND", new byte[0]);
+		return out.toByteArray();
+	}
+
+	private static int normalize(int argb)
+	{
+		return (argb >>> 24) == 0 ? 0 : argb;
+	}
+
+	/**
+	 * Returns the distinct colors of the image, translucent ones first so tRNS can be cut short,
+	 * or null if there are more than 256
+	 */
+	private static int[] palette(int[] argb, int length)
+	{
+		// open addressing set; 0 is tracked separately since it marks empty slots
+		int[] table = new int[1024];
+		boolean zero = false;
+		int count = 0;
+		for (int i = 0; i < length; i++)
+		{
+			int c = normalize(argb[i]);
+			if (c == 0)
+			{
+				if (!zero)
+				{
+					zero = true;
+					if (++count > 256)
+					{
+						return null;
+					}
+				}
+				continue;
+			}
+
+			int slot = mix(c) & (table.length - 1);
+			while (table[slot] != 0 && table[slot] != c)
+			{
+				slot = (slot + 1) & (table.length - 1);
+			}
+			if (table[slot] == 0)
+			{
+				table[slot] = c;
+				if (++count > 256)
+				{
+					return null;
+				}
+			}
+		}
+
+		int[] palette = new int[count];
+		int n = 0;
+		if (zero)
+		{
+			palette[n++] = 0;
+		}
+		for (int c : table)
+		{
+			if (c != 0 && c >>> 24 != 0xFF)
+			{
+				palette[n++] = c;
+			}
+		}
+		for (int c : table)
+		{
+			if (c != 0 && c >>> 24 == 0xFF)
+			{
+				palette[n++] = c;
+			}
+		}
+		return palette;
+	}
+
+	private static int mix(int c)
+	{
+		c *= 0x9E3779B9;
+		return c ^ (c >>> 16);
+	}
+
+	private static byte[] indexed(int[] argb, int width, int height, int[] palette)
+	{
+		// sort a copy so indices can be found by binary search
+		int[] sorted = palette.clone();
+		Arrays.sort(sorted);
+		byte[] indexOf = new byte[palette.length];
+		for (int i = 0; i < palette.length; i++)
+		{
+			indexOf[Arrays.binarySearch(sorted, palette[i])] = (byte) i;
+		}
+
+		int stride = width + 1;
+		byte[] raw = new byte[stride * height];
+		// if 0 is in the palette it is entry 0
+		int last = 0;
+		byte lastIndex = 0;
+		for (int y = 0; y < height; y++)
+		{
+			// filter type 0, which the spec recommends for indexed images
+			int row = y * stride + 1;
+			for (int x = 0; x < width; x++)
+			{
+				int c = normalize(argb[y * width + x]);
+				if (c != last)
+				{
+					last = c;
+					lastIndex = indexOf[Arrays.binarySearch(sorted, c)];
+				}
+				raw[row + x] = lastIndex;
+			}
+		}
+		return raw;
+	}
+
+	private static byte[] rgba(int[] argb, int width, int height)
+	{
+		int bpp = 4;
+		int stride = width * bpp;
+		byte[] unfiltered = new byte[stride * height];
+		for (int i = 0; i < width * height; i++)
+		{
+			int c = normalize(argb[i]);
+			unfiltered[i * 4] = (byte) (c >>> 16);
+			unfiltered[i * 4 + 1] = (byte) (c >>> 8);
+			unfiltered[i * 4 + 2] = (byte) c;
+			unfiltered[i * 4 + 3] = (byte) (c >>> 24);
+		}
+
+		byte[] raw = new byte[(stride + 1) * height];
+		byte[] candidate = new byte[stride];
+		for (int y = 0; y < height; y++)
+		{
+			int cur = y * stride;
+			int prev = cur - stride;
+			int out = y * (stride + 1);
+
+			// pick the filter with the smallest sum of absolute values, as libpng does
+			long best = Long.MAX_VALUE;
+			for (int type = 0; type <= 4; type++)
+			{
+				if (y == 0 && type >= 2)
+				{
+					break;
+				}
+
+				long sum = 0;
+				for (int i = 0; i < stride; i++)
+				{
+					int x = unfiltered[cur + i] & 0xFF;
+					int a = i >= bpp ? unfiltered[cur + i - bpp] & 0xFF : 0;
+					int b = y > 0 ? unfiltered[prev + i] & 0xFF : 0;
+					int c = i >= bpp && y > 0 ? unfiltered[prev + i - bpp] & 0xFF : 0;
+					int f;
+					switch (type)
+					{
+						case 1:
+							f = x - a;
+							break;
+						case 2:
+							f = x - b;
+							break;
+						case 3:
+							f = x - ((a + b) >>> 1);
+							break;
+						case 4:
+							f = x - paeth(a, b, c);
+							break;
+						default:
+							f = x;
+							break;
+					}
+					candidate[i] = (byte) f;
+					sum += Math.abs((byte) f);
+				}
+
+				if (sum < best)
+				{
+					best = sum;
+					raw[out] = (byte) type;
+					System.arraycopy(candidate, 0, raw, out + 1, stride);
+				}
+			}
+		}
+		return raw;
+	}
+
+	private static int paeth(int a, int b, int c)
+	{
+		int p = a + b - c;
+		int pa = Math.abs(p - a);
+		int pb = Math.abs(p - b);
+		int pc = Math.abs(p - c);
+		if (pa <= pb && pa <= pc)
+		{
+			return a;
+		}
+		return pb <= pc ? b : c;
+	}
+
+	private byte[] deflate(byte[] raw)
+	{
+		Deflater deflater = deflaters.get();
+		deflater.reset();
+		deflater.setInput(raw);
+		deflater.finish();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 64);
+		byte[] buf = new byte[8192];
+		while (!deflater.finished())
+		{
+			int n = deflater.deflate(buf);
+			out.write(buf, 0, n);
+		}
+		return out.toByteArray();
+	}
+
+	private static void writeChunk(ByteArrayOutputStream out, String type, byte[] data)
+	{
+		int length = data.length;
+		byte[] header = new byte[8];
+		putInt(header, 0, length);
+		byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+		System.arraycopy(name, 0, header, 4, 4);
+		out.write(header, 0, 8);
+		out.write(data, 0, length);
+
+		CRC32 crc = new CRC32();
+		crc.update(name);
+		crc.update(data, 0, length);
+		byte[] trailer = new byte[4];
+		putInt(trailer, 0, (int) crc.getValue());
+		out.write(trailer, 0, 4);
+	}
+
+	private static void putInt(byte[] b, int off, int v)
+	{
+		b[off] = (byte) (v >>> 24);
+		b[off + 1] = (byte) (v >>> 16);
+		b[off + 2] = (byte) (v >>> 8);
+		b[off + 3] = (byte) v;
+	}
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import net.runelite.cache.definitions.SpriteDefinition;
+
+/**
+ * Packs sprite frames into a few large pages with a shelf packer. Frames are placed tallest first,
+ * left to right in rows, so the layout only depends on the set of frames and not on load order
+ */
+class SpriteAtlas
+{
+	static class Entry
+	{
+		int id;
+		int frame;
+		int atlas;
+		int x;
+		int y;
+		int width;
+		int height;
+		int offsetX;
+		int offsetY;
+		int maxWidth;
+		int maxHeight;
+	}
+
+	static class Page
+	{
+		private final int id;
+		private final List<Entry> entries = new ArrayList<>();
+		private final List<SpriteDefinition> sprites = new ArrayList<>();
+		private int width;
+		private int height;
+
+		private Page(int id)
+		{
+			this.id = id;
+		}
+
+		int getId()
+		{
+			return id;
+		}
+
+		int getWidth()
+		{
+			return width;
+		}
+
+		int getHeight()
+		{
+			return height;
+		}
+
+		/**
+		 * Draws the frames of this page into an ARGB image
+		 */
+		int[] render()
+		{
+			int[] pixels = new int[width * height];
+			for (int i = 0; i < entries.size(); i++)
+			{
+				Entry e = entries.get(i);
+				int[] src = sprites.get(i).getPixels();
+				for (int y = 0; y < e.height; y++)
+				{
+					System.arraycopy(src, y * e.width, pixels, (e.y + y) * width + e.x, e.width);
+				}
+			}
+			return pixels;
+		}
+	}
+
+	private final List<Page> pages = new ArrayList<>();
+	private final List<Entry> entries = new ArrayList<>();
+
+	private SpriteAtlas()
+	{
+	}
+
+	List<Page> getPages()
+	{
+		return pages;
+	}
+
+	/**
+	 * Returns the placement of every frame, ordered by id and frame
+	 */
+	List<Entry> getEntries()
+	{
+		return entries;
+	}
+
+	/**
+	 * Packs {@code sprites} into pages of at most {@code size} by {@code size} pixels. Frames that
+	 * don't fit in that get a page of their own
+	 */
+	static SpriteAtlas pack(Collection<SpriteDefinition> sprites, int size)
+	{
+		List<SpriteDefinition> sorted = new ArrayList<>(sprites);
+		sorted.sort(Comparator.comparingInt(SpriteDefinition::getHeight).reversed()
+			.thenComparing(Comparator.comparingInt(SpriteDefinition::getWidth).reversed())
+			.thenComparingInt(SpriteDefinition::getId)
+			.thenComparingInt(SpriteDefinition::getFrame));
+
+		SpriteAtlas atlas = new SpriteAtlas();
+		Page page = null;
+		int x = 0;
+		int y = 0;
+		int shelfHeight = 0;
+		for (SpriteDefinition s : sorted)
+		{
+			int w = s.getWidth();
+			int h = s.getHeight();
+
+			Page target;
+			int px;
+			int py;
+			if (w > size || h > size)
+			{
+				target = atlas.newPage();
+				px = 0;
+				py = 0;
+			}
+			else
+			{
+				if (page != null && x + w > size)
+				{
+					x = 0;
+					y += shelfHeight;
+					shelfHeight = 0;
+				}
+				if (page == null || y + h > size)
+				{
+					page = atlas.newPage();
+					x = 0;
+					y = 0;
+					shelfHeight = 0;
+				}
+
+				target = page;
+				px = x;
+				py = y;
+				x += w;
+				shelfHeight = Math.max(shelfHeight, h);
+			}
+
+			Entry e = new Entry();
+			e.id = s.getId();
+			e.frame = s.getFrame();
+			e.atlas = target.id;
+			e.x = px;
+			e.y = py;
+			e.width = w;
+			e.height = h;
+			e.offsetX = s.getOffsetX();
+			e.offsetY = s.getOffsetY();
+			e.maxWidth = s.getMaxWidth();
+			e.maxHeight = s.getMaxHeight();
+
+			target.entries.add(e);
+			target.sprites.add(s);
+			target.width = Math.max(target.width, px + w);
+			target.height = Math.max(target.height, py + h);
+			atlas.entries.add(e);
+		}
+
+		atlas.entries.sort(Comparator.<Entry>comparingInt(e -> e.id).thenComparingInt(e -> e.frame));
+		return atlas;
+	}
+
+	private Page newPage()
+	{
+		Page p = new Page(pages.size());
+		pages.add(p);
+		return p;
+	}
+}
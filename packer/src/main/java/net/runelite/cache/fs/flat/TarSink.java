@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2026 Abex
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.flat;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a gzipped ustar archive, the same as {@code tar -zcf}
+ */
+class TarSink extends ArchiveSink
+{
+	private static final int BLOCK = 512;
+
+	private final OutputStream out;
+	private final long mtime = System.currentTimeMillis() / 1000;
+
+	TarSink(File file) throws IOException
+	{
+		out = new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16), 1 << 16);
+	}
+
+	@Override
+	protected void writeEntry(String path, byte[] data) throws IOException
+	{
+		byte[] header = new byte[BLOCK];
+		byte[] name = path.getBytes(StandardCharsets.UTF_8);
+		if (name.length <= 100)
+		{
+			System.arraycopy(name, 0, header, 0, name.length);
+		}
+		else
+		{
+			// ustar splits long names into a prefix and a name at a /
+			int split = path.lastIndexOf('/', 155);
+			byte[] prefix = path.substring(0, Math.max(split, 0)).getBytes(StandardCharsets.UTF_8);
+			byte[] rest = path.substring(split + 1).getBytes(StandardCharsets.UTF_8);
+			if (split <= 0 || prefix.length > 155 || rest.length > 100)
+			{
+				throw new IOException("path too long for tar: " + path);
+			}
+			System.arraycopy(rest, 0, header, 0, rest.length);
+			System.arraycopy(prefix, 0, header, 345, prefix.length);
+		}
+
+		octal(header, 100, 8, 0644);
+		octal(header, 108, 8, 0);
+		octal(header, 116, 8, 0);
+		octal(header, 124, 12, data.length);
+		octal(header, 136, 12, mtime);
+		header[156] = '0';
+		System.arraycopy("ustar\00000".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 8);
+
+		// the checksum is computed with its own field filled with spaces
+		for (int i = 148; i < 156; i++)
+		{
+			header[i] = ' ';
+		}
+		int sum = 0;
+		for (byte b : header)
+		{
+			sum += b & 0xFF;
+		}
+		octal(header, 148, 7, sum);
+
+		out.write(header);
+		out.write(data);
+		int pad = (BLOCK - data.length % BLOCK) % BLOCK;
+		out.write(new byte[pad]);
+	}
+
+	private static void octal(byte[] header, int off, int len, long value)
+	{
+		String s = Long.toOctalString(value);
+		int digits = len - 1;
+		for (int i = 0; i < digits; i++)
+		{
+			int si = s.length() - digits + i;
+			header[off + i] = (byte) (si < 0 ? '0' : s.charAt(si));
+		}
+		header[off + digits] = 0;
+	}
+
+	@Override
+	protected void finish() throws IOException
+	{
+		out.write(new byte[BLOCK * 2]);
+		out.close();
+	}
+}